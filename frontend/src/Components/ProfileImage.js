@@ -2,11 +2,22 @@ import React from 'react';
 
 import defaultImage from '../Assets/profile.png';
 
+export const selectVariant = (image, variants, width) => {
+    const requested = parseInt(width, 10);
+    if (!variants || !requested) {
+        return image;
+    }
+    const sizes = Object.keys(variants)
+        .map((size) => parseInt(size, 10))
+        .filter((size) => size >= requested)
+        .sort((a, b) => a - b);
+    return sizes.length > 0 ? variants[sizes[0]] : image;
+};
 
 const ProfileImage = (props) => {
     let imageSource = defaultImage;
     if(props.image && props.imageSource !== defaultImage){
-        imageSource = '/images/profile/' + props.image;
+        imageSource = '/images/profile/' + selectVariant(props.image, props.imageVariants, props.width);
     }
 
     if (props.src)
@@ -32,5 +32,23 @@ describe('ProfileImage', () => {
 
             expect(image.src).toContain('http://localhost/images/profile/' + providedImage);
         });
+
+        it('displays smallest variant that covers the requested width', () => {
+            const variants = { 64: 'profile1_64', 256: 'profile1_256' };
+            const { container } = render(<ProfileImage image = "profile1" imageVariants = {variants} width = "32"/>);
+
+            const image = container.querySelector('img');
+
+            expect(image.src).toContain('http://localhost/images/profile/profile1_64');
+        });
+
+        it('displays original image when no variant covers the requested width', () => {
+            const variants = { 64: 'profile1_64' };
+            const { container } = render(<ProfileImage image = "profile1" imageVariants = {variants} width = "200"/>);
+
+            const image = container.querySelector('img');
+
+            expect(image.src).toMatch(/\/images\/profile\/profile1$/);
+        });
    }); 
 });
\ No newline at end of file
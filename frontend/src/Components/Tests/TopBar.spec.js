@@ -13,7 +13,8 @@ const loggedInState = {
     username: 'user1',
     displayName: 'display1',
     image: 'profile1.png',
-    password: 'P4ssword',
+    accessToken: 'access-token',
+    refreshToken: 'refresh-token',
     isLoggedIn: true,
 };
 
@@ -22,7 +23,8 @@ const defaultState = {
     username: '',
     displayName: '',
     image: '',
-    password: '',
+    accessToken: '',
+    refreshToken: '',
     isLoggedIn: false,
 };
 
@@ -15,7 +15,8 @@ const loggedInStateUser1 = {
     username: 'user1',
     displayName: 'display1',
     image: 'profile1.png',
-    password: 'P4ssword',
+    accessToken: 'access-token',
+    refreshToken: 'refresh-token',
     isLoggedIn: true,
 };
 
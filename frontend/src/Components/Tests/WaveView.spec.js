@@ -12,7 +12,8 @@ const loggedInStateUser1 = {
     username: 'user1',
     displayName: 'display1',
     image: 'profile1.png',
-    password: 'P4ssword',
+    accessToken: 'access-token',
+    refreshToken: 'refresh-token',
     isLoggedIn: true,
 };
 
@@ -21,7 +22,8 @@ const loggedInStateUser2 = {
     username: 'user2',
     displayName: 'display2',
     image: 'profile2.png',
-    password: 'P4ssword',
+    accessToken: 'access-token',
+    refreshToken: 'refresh-token',
     isLoggedIn: true,
 };
 
@@ -145,6 +147,19 @@ describe('WaveView', () => {
             expect(attachmentImage.src).toContain('http://localhost/images/attachments/' + waveWithAttachment.attachment.name);
         });
 
+        it('sets the largest preview variant as source when attachment has variants', () => {
+            const wave = {
+                ...waveWithAttachment,
+                attachment: { ...waveWithAttachment.attachment, variants: { 64: 'attached-image.png_64', 1024: 'attached-image.png_1024' } }
+            };
+            const { container } = setup(wave);
+
+            const images = container.querySelectorAll('img');
+            const attachmentImage = images[1];
+
+            expect(attachmentImage.src).toContain('http://localhost/images/attachments/attached-image.png_1024');
+        });
+
         it('displays delete button when wave owned by logged in user', () => {
             const { container } = setup();
 
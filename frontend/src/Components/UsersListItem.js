@@ -13,6 +13,7 @@ const UsersListItem = (props) => {
         >
             <ProfileImage 
                 image = {props.user.image} 
+                imageVariants = {props.user.imageVariants}
                 width = {"32"} 
                 height = {"32"} 
                 class = {"rounded-circle"}
@@ -27,7 +27,11 @@ class WaveFeed extends Component {
                 this.setState(
                     {page: response.data, isLoadingWaves: false},
                     () => {
-                        this.counter = setInterval(this.checkCount, 3000);
+                        if (typeof EventSource !== 'undefined'){
+                            this.subscribeNewWaves();
+                        } else {
+                            this.counter = setInterval(this.checkCount, 3000);
+                        }
                     }    
                 );
             });
@@ -35,6 +39,21 @@ class WaveFeed extends Component {
 
     componentWillUnmount(){
         clearInterval(this.counter);
+        if (this.eventSource){
+            this.eventSource.close();
+        }
+    }
+
+    subscribeNewWaves = () => {
+        this.eventSource = apiCalls.subscribeNewWaves(this.props.user);
+        this.eventSource.addEventListener('count', event => {
+            const data = JSON.parse(event.data);
+            const waves = this.state.page.content;
+            const topWaveId = waves.length > 0 ? waves[0].id : 0;
+            if (data.count > 0 && data.id > topWaveId){
+                this.setState(state => ({newWaveCount: state.newWaveCount + data.count}));
+            }
+        });
     }
 
     checkCount = () => {
@@ -160,4 +179,4 @@ class WaveFeed extends Component {
     }
 }
 
-export default WaveFeed;
\ No newline at end of file
+export default WaveFeed;
\ No newline at end of file
@@ -3,13 +3,13 @@ import { format } from 'timeago.js';
 import { Link } from 'react-router-dom';
 import { connect } from 'react-redux';
 
-import ProfileImage from './ProfileImage';
+import ProfileImage, { selectVariant } from './ProfileImage';
 
 class WaveView extends Component {
     render() {
         const { wave, onClickDelete } = this.props;
         const { user, date } = wave;
-        const { username, displayName, image } = user;
+        const { username, displayName, image, imageVariants } = user;
         const relativeDate = format(date);
         const attachmentImageVisible = wave.attachment && wave.attachment.fileType.startsWith('image');
         const ownedByLoggedInUser = user.id === this.props.loggedInUser.id;
@@ -21,6 +21,7 @@ class WaveView extends Component {
                         width = "32"
                         height = "32"
                         image = {image}
+                        imageVariants = {imageVariants}
                     />
                     <div className = "flex-fill m-auto pl-2">
                         <Link to = {`/${username}`} className = "list-group-item-action">
@@ -45,7 +46,7 @@ class WaveView extends Component {
                     <div className = "pl-5">
                         <img 
                             alt = "attachment" 
-                            src={`/images/attachments/${wave.attachment.name}`} 
+                            src={`/images/attachments/${selectVariant(wave.attachment.name, wave.attachment.variants, 1024)}`} 
                             className = "img-fluid"
                         />
                     </div>
@@ -71,8 +71,9 @@ const setUserOneLoggedInStorage = () => {
         id: 1,
         username: 'user1',
         displayName: 'display1',
-        password: 'P4ssword',
         image: 'profile1.png',
+        accessToken: 'access-token',
+        refreshToken: 'refresh-token',
         isLoggedIn: true
     }));
 }
@@ -260,6 +261,8 @@ describe('App', () => {
                 username: 'user1',
                 displayName: 'display1',
                 image: 'profile.png',
+                accessToken: 'access-token',
+                refreshToken: 'refresh-token',
             }
         });
         fireEvent.click(button)
@@ -270,8 +273,9 @@ describe('App', () => {
             id: 1,
             username: 'user1',
             displayName: 'display1',
-            password: 'P4ssword',
             image: 'profile.png',
+            accessToken: 'access-token',
+            refreshToken: 'refresh-token',
             isLoggedIn: true
         });
     });
@@ -285,7 +289,7 @@ describe('App', () => {
         expect(myProfileLink).toBeInTheDocument();
     });
 
-    it('sets axios authorization with base64 encoded user credentials after successful login', async () => {
+    it('sets axios authorization with bearer access token after successful login', async () => {
         const { queryByPlaceholderText, container, queryByText} = setup('/login');
 
         const usernameInput = queryByPlaceholderText('Your username');
@@ -299,26 +303,24 @@ describe('App', () => {
                 username: 'user1',
                 displayName: 'display1',
                 image: 'profile.png',
+                accessToken: 'access-token',
+                refreshToken: 'refresh-token',
             }
         });
         fireEvent.click(button)
         await waitForElement(() => queryByText('My Profile'));
         const axiosAuthorization = axios.defaults.headers.common['Authorization'];
-        const encoded = btoa('user1:P4ssword');
-        const expectedAuthorization = `Basic ${encoded}`;
 
-        expect(axiosAuthorization).toBe(expectedAuthorization);  
+        expect(axiosAuthorization).toBe('Bearer access-token');  
     });
 
-    it('sets axios authorization with base64 encoded user credentials when localStorage has logged in user data', () => {
+    it('sets axios authorization with bearer access token when localStorage has logged in user data', () => {
         setUserOneLoggedInStorage();
 
         setup('/');
         const axiosAuthorization = axios.defaults.headers.common['Authorization'];
-        const encoded = btoa('user1:P4ssword');
-        const expectedAuthorization = `Basic ${encoded}`;
-        
-        expect(axiosAuthorization).toBe(expectedAuthorization); 
+
+        expect(axiosAuthorization).toBe('Bearer access-token');
     });
 
     it('removes axios authorization header when user logout', () => {
@@ -13,7 +13,8 @@ const defaultState = {
     username: 'user1',
     displayName: 'display1',
     image: 'profile1.png',
-    password: 'P4ssword',
+    accessToken: 'access-token',
+    refreshToken: 'refresh-token',
     isLoggedIn: true,
 };
 
@@ -69,7 +70,8 @@ describe('HomePage', () => {
                 id: 0,
                 username: '',
                 displayName: '',
-                password: '',
+                accessToken: '',
+                refreshToken: '',
                 image: '',
                 isLoggedIn: false,
             };
@@ -77,7 +77,8 @@ const setUserOneLoggedInStorage = () => {
         id: 1,
         username: 'user1',
         displayName: 'display1',
-        password: 'P4ssword',
+        accessToken: 'access-token',
+        refreshToken: 'refresh-token',
         image: 'profile1.png',
         isLoggedIn: true
     }));
@@ -3,12 +3,7 @@ import * as apiCalls from '../api/apiCalls';
 export const loginHandler = (credentials) => {
     return function(dispatch){
         return apiCalls.login(credentials).then((response) => {
-            dispatch(
-                loginSuccess({
-                    ...response.data,
-                    password: credentials.password,
-                })
-            );
+            dispatch(loginSuccess({...response.data}));
             return response;
         })
     }
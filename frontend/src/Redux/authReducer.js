@@ -3,7 +3,8 @@ const initialState = {
     username: '',
     displayName: '',
     image: '',
-    password: '',
+    accessToken: '',
+    refreshToken: '',
     isLoggedIn: false,
 };
 
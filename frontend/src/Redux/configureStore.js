@@ -3,6 +3,7 @@ import thunk from "redux-thunk";
 import logger from 'redux-logger';
 import authReducer from "./authReducer";
 import * as apiCalls from '../api/apiCalls';
+import { loginSuccess } from './authActions';
 
 const configureStore = (addLogged = true) =>{
     let localStorageData = localStorage.getItem('wave-auth');
@@ -11,7 +12,8 @@ const configureStore = (addLogged = true) =>{
         username: '',
         displayName: '',
         image: '',
-        password: '',
+        accessToken: '',
+        refreshToken: '',
         isLoggedIn: false,
     }
     if (localStorageData){
@@ -30,6 +32,12 @@ const configureStore = (addLogged = true) =>{
         localStorage.setItem('wave-auth', JSON.stringify(store.getState()));
         apiCalls.setAuthorizationHeader(store.getState());
     });
+
+    apiCalls.setupTokenRefresh({
+        getRefreshToken: () => store.getState().refreshToken,
+        onRefreshed: (loginUserData) => store.dispatch(loginSuccess(loginUserData)),
+        onRefreshFailed: () => store.dispatch({type: 'logout-success'}),
+    });
     return store;
 }
 
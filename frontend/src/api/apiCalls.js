@@ -8,14 +8,56 @@ export const login = (user) => {
     return axios.post('/api/1.0/login', {}, { auth: user });
 };
 
-export const setAuthorizationHeader = ({username, password, isLoggedIn}) => {
-    if (isLoggedIn){
-        axios.defaults.headers.common['Authorization'] = `Basic ${btoa(username + ':' + password)}`;
+export const refreshLogin = (refreshToken) => {
+    return axios.post('/api/1.0/login/refresh', { refreshToken });
+};
+
+export const setAuthorizationHeader = ({accessToken, isLoggedIn}) => {
+    if (isLoggedIn && accessToken){
+        axios.defaults.headers.common['Authorization'] = `Bearer ${accessToken}`;
     } else {
         delete axios.defaults.headers.common['Authorization'];
     }
 };
 
+let pendingRefresh;
+
+// Handles a 401 by exchanging the refresh token for new tokens once and retrying the request with them.
+// Concurrent failures share the same refresh call.
+export const refreshOnUnauthorized = ({getRefreshToken, onRefreshed, onRefreshFailed}) => (error) => {
+    const request = error.config;
+    const refreshToken = getRefreshToken();
+    if (!error.response || error.response.status !== 401 || !request || request.isRetry
+        || !refreshToken || request.url.startsWith('/api/1.0/login')){
+        return Promise.reject(error);
+    }
+    if (!pendingRefresh){
+        pendingRefresh = refreshLogin(refreshToken).then((response) => {
+            pendingRefresh = undefined;
+            onRefreshed(response.data);
+            return response.data;
+        }, (refreshError) => {
+            pendingRefresh = undefined;
+            onRefreshFailed();
+            throw refreshError;
+        });
+    }
+    return pendingRefresh.then((tokens) => {
+        request.isRetry = true;
+        request.headers['Authorization'] = `Bearer ${tokens.accessToken}`;
+        return axios.request(request);
+    }, () => Promise.reject(error));
+};
+
+let refreshInterceptor;
+
+export const setupTokenRefresh = (handlers) => {
+    if (refreshInterceptor !== undefined){
+        axios.interceptors.response.eject(refreshInterceptor);
+    }
+    refreshInterceptor = axios.interceptors.response.use((response) => response, refreshOnUnauthorized(handlers));
+};
+
 export const listUsers = (callParameters = {page: 0, size: 3}) => {
     const path = `/api/1.0/users?page=${callParameters.page || 0}&size=${callParameters.size || 3}`;
     return axios.get(path);
@@ -64,10 +106,17 @@ export const loadNewWaveCount = (waveId, username) => {
     return axios.get(path);
 }
 
+export const subscribeNewWaves = (username) => {
+    const basePath = username 
+    ? `/api/1.0/users/${username}/waves`
+    : '/api/1.0/waves';
+    return new EventSource(`${basePath}/stream`);
+}
+
 export const postWaveFile = (file) => {
     return axios.post('/api/1.0/waves/upload', file);
 };
 
 export const deleteWave = (waveId) => {
     return axios.delete(`/api/1.0/waves/${waveId}`);
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -30,6 +30,96 @@ describe('apiCalls', () => {
         })
     })
 
+    describe('refreshLogin', () => {
+
+        it('calls /api/1.0/login/refresh with refresh token', () => {
+            const mockRefresh = jest.fn();
+            axios.post = mockRefresh;
+
+            apiCalls.refreshLogin('refresh-token');
+
+            expect(mockRefresh).toBeCalledWith('/api/1.0/login/refresh', { refreshToken: 'refresh-token' });
+        });
+    });
+
+    describe('setAuthorizationHeader', () => {
+
+        it('sets bearer authorization with access token when user is logged in', () => {
+            apiCalls.setAuthorizationHeader({accessToken: 'access-token', isLoggedIn: true});
+
+            expect(axios.defaults.headers.common['Authorization']).toBe('Bearer access-token');
+        });
+
+        it('removes authorization when user is not logged in', () => {
+            apiCalls.setAuthorizationHeader({accessToken: 'access-token', isLoggedIn: false});
+
+            expect(axios.defaults.headers.common['Authorization']).toBeFalsy();
+        });
+    });
+
+    describe('refreshOnUnauthorized', () => {
+
+        const unauthorized = (url = '/api/1.0/waves') => ({
+            config: { url, headers: {} },
+            response: { status: 401 },
+        });
+
+        const handlers = (overrides = {}) => ({
+            getRefreshToken: () => 'refresh-token',
+            onRefreshed: jest.fn(),
+            onRefreshFailed: jest.fn(),
+            ...overrides,
+        });
+
+        it('retries request with new access token after refreshing', async () => {
+            axios.post = jest.fn().mockResolvedValue({ data: { accessToken: 'new-access', refreshToken: 'new-refresh' } });
+            axios.request = jest.fn().mockResolvedValue({ data: 'retried' });
+            const callbacks = handlers();
+
+            const response = await apiCalls.refreshOnUnauthorized(callbacks)(unauthorized());
+
+            expect(response.data).toBe('retried');
+            expect(callbacks.onRefreshed).toBeCalledWith({ accessToken: 'new-access', refreshToken: 'new-refresh' });
+            expect(axios.request.mock.calls[0][0].headers['Authorization']).toBe('Bearer new-access');
+        });
+
+        it('refreshes once for concurrent unauthorized responses', async () => {
+            axios.post = jest.fn().mockResolvedValue({ data: { accessToken: 'new-access' } });
+            axios.request = jest.fn().mockResolvedValue({});
+            const handler = apiCalls.refreshOnUnauthorized(handlers());
+
+            await Promise.all([handler(unauthorized()), handler(unauthorized())]);
+
+            expect(axios.post).toHaveBeenCalledTimes(1);
+            expect(axios.request).toHaveBeenCalledTimes(2);
+        });
+
+        it('rejects original error and reports failure when refresh fails', async () => {
+            axios.post = jest.fn().mockRejectedValue({ response: { status: 401 } });
+            const callbacks = handlers();
+            const error = unauthorized();
+
+            await expect(apiCalls.refreshOnUnauthorized(callbacks)(error)).rejects.toBe(error);
+            expect(callbacks.onRefreshFailed).toHaveBeenCalled();
+        });
+
+        it('does not refresh when login call itself is unauthorized', async () => {
+            axios.post = jest.fn();
+            const error = unauthorized('/api/1.0/login');
+
+            await expect(apiCalls.refreshOnUnauthorized(handlers())(error)).rejects.toBe(error);
+            expect(axios.post).not.toHaveBeenCalled();
+        });
+
+        it('does not refresh when there is no refresh token', async () => {
+            axios.post = jest.fn();
+            const error = unauthorized();
+
+            await expect(apiCalls.refreshOnUnauthorized(handlers({ getRefreshToken: () => '' }))(error)).rejects.toBe(error);
+            expect(axios.post).not.toHaveBeenCalled();
+        });
+    });
+
     describe('listUser', () => {
         it('calls /api/1.0/users?page=0&size=3 when no parametr provided for listUsers', () => {
             const mockListUsers = jest.fn();
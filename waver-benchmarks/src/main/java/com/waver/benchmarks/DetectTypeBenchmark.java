@@ -0,0 +1,58 @@
+package com.waver.benchmarks;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.services.ContentTypeDetector;
+import com.waver.services.FileService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectTypeBenchmark {
+
+    FileService fileService;
+
+    byte[] png;
+
+    byte[] text;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // detectType only needs the detector, so no application context is started here.
+        fileService = new FileService(new AppConfiguration(), null, null, null, new ContentTypeDetector(), null);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "png", output);
+        png = output.toByteArray();
+        text = "Plain text attachment content".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String detectPng() {
+        return fileService.detectType(png);
+    }
+
+    @Benchmark
+    public String detectText() {
+        return fileService.detectType(text);
+    }
+}
@@ -0,0 +1,57 @@
+package com.waver.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Latencies of one endpoint, kept raw so the report can take exact high percentiles.
+class EndpointStats {
+
+    private final String name;
+
+    private long[] latencies = new long[1024];
+
+    private int count;
+
+    private long errorCount;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long nanos, boolean error) {
+        if (count == latencies.length){
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (error){
+            errorCount++;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    synchronized double getErrorRate() {
+        return count == 0 ? 0 : (double) errorCount / count;
+    }
+
+    // Nearest-rank percentile in milliseconds.
+    synchronized double percentile(double percent) {
+        if (count == 0){
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percent / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,362 @@
+package com.waver.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Drives the seeded application over HTTP with the traffic mix of real clients and checks the
+// resulting latencies against the SLOs in load-test.properties. Exits with 1 when any SLO is breached.
+public class LoadDriver {
+
+    private static final String API = "/api/1.0";
+
+    private static final String[] ACTIONS = {"page", "user-page", "scroll", "post", "profile"};
+
+    private final Properties config;
+
+    private final SeededApplication application;
+
+    private final CloseableHttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    private final String baseUrl;
+
+    private final byte[] image;
+
+    private final int pageSize;
+
+    private final int[] weights = new int[ACTIONS.length];
+
+    private int totalWeight;
+
+    private long measureFrom;
+
+    private long measureUntil;
+
+    public LoadDriver(Properties config, SeededApplication application) throws IOException {
+        this.config = config;
+        this.application = application;
+        this.baseUrl = "http://localhost:" + application.getPort() + API;
+        this.pageSize = intValue("page.size");
+        this.image = createImage();
+        for (int i = 0; i < ACTIONS.length; i++){
+            weights[i] = intValue("mix." + ACTIONS[i]);
+            totalWeight += weights[i];
+        }
+        for (String endpoint : new String[]{"login", "poll", "page", "user-page", "scroll", "upload", "post", "profile"}){
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+        int virtualUsers = intValue("virtual.users");
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(virtualUsers);
+        connectionManager.setDefaultMaxPerRoute(virtualUsers);
+        this.httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties config = loadConfig(args);
+        List<String> violations;
+        try (SeededApplication application = new SeededApplication(
+                Integer.parseInt(config.getProperty("seed.users")), Integer.parseInt(config.getProperty("seed.waves")))) {
+            violations = new LoadDriver(config, application).run();
+        }
+        violations.forEach(violation -> System.out.println("SLO violation: " + violation));
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    public List<String> run() throws Exception {
+        int virtualUsers = intValue("virtual.users");
+        long now = System.currentTimeMillis();
+        measureFrom = now + TimeUnit.SECONDS.toMillis(intValue("warmup.seconds"));
+        measureUntil = measureFrom + TimeUnit.SECONDS.toMillis(intValue("duration.seconds"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(virtualUsers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < virtualUsers; i++){
+            VirtualUser user = new VirtualUser(i % application.getUserCount());
+            futures.add(executor.submit(() -> {
+                user.run();
+                return null;
+            }));
+        }
+        for (Future<?> future : futures){
+            future.get();
+        }
+        executor.shutdown();
+        httpClient.close();
+
+        report();
+        return checkSlos();
+    }
+
+    private void report() {
+        double seconds = (measureUntil - measureFrom) / 1000.0;
+        System.out.println(String.format("%-10s %8s %9s %7s %9s %9s %9s", "endpoint", "count", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms"));
+        for (EndpointStats endpoint : stats.values()){
+            System.out.println(String.format("%-10s %8d %9.1f %7d %9.2f %9.2f %9.2f",
+                    endpoint.getName(), endpoint.getCount(), endpoint.getCount() / seconds, endpoint.getErrorCount(),
+                    endpoint.percentile(50), endpoint.percentile(99), endpoint.percentile(99.9)));
+        }
+    }
+
+    private List<String> checkSlos() {
+        List<String> violations = new ArrayList<>();
+        double maxErrorRate = Double.parseDouble(config.getProperty("slo.error-rate", "1"));
+        for (EndpointStats endpoint : stats.values()){
+            if (endpoint.getErrorRate() > maxErrorRate){
+                violations.add(String.format("%s error rate %.4f > %.4f", endpoint.getName(), endpoint.getErrorRate(), maxErrorRate));
+            }
+            for (String percentile : new String[]{"p50", "p99", "p999"}){
+                String limit = config.getProperty("slo." + endpoint.getName() + "." + percentile);
+                if (limit == null || endpoint.getCount() == 0){
+                    continue;
+                }
+                double actual = endpoint.percentile(percentile.equals("p999") ? 99.9 : Double.parseDouble(percentile.substring(1)));
+                if (actual > Double.parseDouble(limit)){
+                    violations.add(String.format("%s %s %.2f ms > %s ms", endpoint.getName(), percentile, actual, limit));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private int intValue(String key) {
+        return Integer.parseInt(config.getProperty(key));
+    }
+
+    private double doubleValue(String key) {
+        return Double.parseDouble(config.getProperty(key));
+    }
+
+    static Properties loadConfig(String[] args) throws IOException {
+        Properties config = new Properties();
+        try (InputStream defaults = LoadDriver.class.getResourceAsStream("/load-test.properties")) {
+            config.load(defaults);
+        }
+        for (String arg : args){
+            int separator = arg.indexOf('=');
+            if (separator < 0){
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            config.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return config;
+    }
+
+    private static byte[] createImage() throws IOException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 64; x++){
+            for (int y = 0; y < 64; y++){
+                image.setRGB(x, y, (x * 4) << 16 | (y * 4) << 8);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private class VirtualUser {
+
+        private final int index;
+
+        private String accessToken;
+
+        private long topWaveId;
+
+        private Long cursor;
+
+        private long nextPollAt;
+
+        VirtualUser(int index) {
+            this.index = index;
+            this.topWaveId = application.getLastWaveId();
+        }
+
+        void run() throws InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            nextPollAt = System.currentTimeMillis() + random.nextInt(intValue("poll.interval.ms"));
+            while (System.currentTimeMillis() < measureUntil){
+                if (accessToken == null){
+                    login();
+                } else if (System.currentTimeMillis() >= nextPollAt){
+                    poll();
+                    nextPollAt += intValue("poll.interval.ms");
+                } else {
+                    perform(pickAction(random));
+                }
+                Thread.sleep(random.nextInt(intValue("think.min.ms"), intValue("think.max.ms") + 1));
+            }
+        }
+
+        private String pickAction(ThreadLocalRandom random) {
+            int target = random.nextInt(totalWeight);
+            for (int i = 0; i < ACTIONS.length; i++){
+                target -= weights[i];
+                if (target < 0){
+                    return ACTIONS[i];
+                }
+            }
+            return ACTIONS[0];
+        }
+
+        private void perform(String action) {
+            switch (action){
+                case "page":
+                    loadPage();
+                    break;
+                case "user-page":
+                    String username = application.getUsername(ThreadLocalRandom.current().nextInt(application.getUserCount()));
+                    execute("user-page", new HttpGet(baseUrl + "/users/" + username + "/waves?page=0&size=" + pageSize + "&sort=id,desc"));
+                    break;
+                case "scroll":
+                    scroll();
+                    break;
+                case "post":
+                    post();
+                    break;
+                case "profile":
+                    updateProfile();
+                    break;
+                default:
+                    throw new IllegalArgumentException(action);
+            }
+        }
+
+        private void login() {
+            HttpPost request = new HttpPost(baseUrl + "/login");
+            String credentials = application.getUsername(index) + ":" + SeededApplication.PASSWORD;
+            request.setHeader(HttpHeaders.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+            JsonNode body = execute("login", request);
+            if (body != null){
+                accessToken = body.get("accessToken").asText();
+            }
+        }
+
+        private void poll() {
+            execute("poll", new HttpGet(baseUrl + "/waves/" + topWaveId + "?direction=after&count=true"));
+        }
+
+        private void loadPage() {
+            JsonNode body = execute("page", new HttpGet(baseUrl + "/waves?page=0&size=" + pageSize + "&sort=id,desc"));
+            if (body != null && body.get("content").size() > 0){
+                JsonNode content = body.get("content");
+                topWaveId = content.get(0).get("id").asLong();
+                cursor = content.get(content.size() - 1).get("id").asLong();
+            }
+        }
+
+        // Keeps scrolling down from the last page seen, starting over from the top once the feed runs out.
+        private void scroll() {
+            if (cursor == null){
+                loadPage();
+                return;
+            }
+            JsonNode body = execute("scroll", new HttpGet(baseUrl + "/waves/" + cursor + "?direction=before&page=0&size=" + pageSize + "&sort=id,desc"));
+            if (body != null){
+                JsonNode nextCursor = body.get("nextCursor");
+                cursor = nextCursor == null || nextCursor.isNull() ? null : nextCursor.asLong();
+            }
+        }
+
+        private void post() {
+            ObjectNode wave = objectMapper.createObjectNode();
+            wave.put("content", "Load test wave posted by " + application.getUsername(index) + " at " + System.nanoTime());
+            if (ThreadLocalRandom.current().nextDouble() < doubleValue("post.attachment.ratio")){
+                HttpPost upload = new HttpPost(baseUrl + "/waves/upload");
+                upload.setEntity(MultipartEntityBuilder.create()
+                        .addBinaryBody("file", image, ContentType.IMAGE_PNG, "load-test.png")
+                        .build());
+                JsonNode attachment = execute("upload", upload);
+                if (attachment == null){
+                    return;
+                }
+                wave.putObject("attachment").put("id", attachment.get("id").asLong());
+            }
+            HttpPost request = new HttpPost(baseUrl + "/waves");
+            request.setEntity(json(wave));
+            execute("post", request);
+        }
+
+        private void updateProfile() {
+            ObjectNode update = objectMapper.createObjectNode();
+            update.put("displayName", "display-" + index + "-" + ThreadLocalRandom.current().nextInt(1000));
+            if (ThreadLocalRandom.current().nextDouble() < doubleValue("profile.image.ratio")){
+                update.put("image", Base64.getEncoder().encodeToString(image));
+            }
+            HttpPut request = new HttpPut(baseUrl + "/users/" + application.getUserId(index));
+            request.setEntity(json(update));
+            execute("profile", request);
+        }
+
+        private HttpEntity json(JsonNode node) {
+            try {
+                return new ByteArrayEntity(objectMapper.writeValueAsBytes(node), ContentType.APPLICATION_JSON);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Returns the parsed body of a successful response, or null after recording the request as an error.
+        private JsonNode execute(String endpoint, HttpUriRequest request) {
+            if (accessToken != null){
+                request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+            }
+            long startedAt = System.nanoTime();
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+                int status = response.getStatusLine().getStatusCode();
+                record(endpoint, System.nanoTime() - startedAt, status >= 400);
+                if (status == 401){
+                    accessToken = null;
+                }
+                return status >= 400 || body.length == 0 ? null : objectMapper.readTree(body);
+            } catch (IOException e) {
+                record(endpoint, System.nanoTime() - startedAt, true);
+                return null;
+            }
+        }
+
+        private void record(String endpoint, long nanos, boolean error) {
+            long now = System.currentTimeMillis();
+            if (now >= measureFrom && now < measureUntil){
+                stats.get(endpoint).record(nanos, error);
+            }
+        }
+    }
+}
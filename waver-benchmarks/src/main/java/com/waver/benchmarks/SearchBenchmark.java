@@ -0,0 +1,157 @@
+package com.waver.benchmarks;
+
+import com.waver.shared.InvertedIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final int TOP_K = 20;
+
+    private static final int VOCABULARY_SIZE = 50000;
+
+    private static final int USER_COUNT = 1000;
+
+    private static final String PHRASE = "release candidate";
+
+    // Synthetic waves with Zipf distributed words, so a few terms are in most waves and most terms are rare.
+    @State(Scope.Benchmark)
+    public static class Corpus {
+
+        @Param({"100000", "500000"})
+        public int documents;
+
+        InvertedIndex index;
+
+        List<String> contents;
+
+        List<String> usernames;
+
+        String commonTerm;
+
+        String rareTerm;
+
+        long nextId;
+
+        @Setup(Level.Trial)
+        public void build() {
+            Random random = new Random(42);
+            double[] cumulative = new double[VOCABULARY_SIZE];
+            double total = 0;
+            for (int rank = 1; rank <= VOCABULARY_SIZE; rank++){
+                total += 1.0 / rank;
+                cumulative[rank - 1] = total;
+            }
+            index = new InvertedIndex();
+            contents = new ArrayList<>(documents);
+            usernames = new ArrayList<>(documents);
+            for (int id = 1; id <= documents; id++){
+                StringBuilder content = new StringBuilder();
+                int length = 10 + random.nextInt(30);
+                for (int i = 0; i < length; i++){
+                    if (i > 0){
+                        content.append(' ');
+                    }
+                    content.append(word(cumulative, random.nextDouble() * total));
+                }
+                if (random.nextInt(100) == 0){
+                    content.append(' ').append(PHRASE);
+                }
+                String username = "bench-user" + random.nextInt(USER_COUNT);
+                contents.add(content.toString());
+                usernames.add(username);
+                index.add(id, username, content.toString());
+            }
+            commonTerm = "w" + Integer.toString(3, 36);
+            rareTerm = "w" + Integer.toString(20000, 36);
+            nextId = documents + 1;
+        }
+
+        private static String word(double[] cumulative, double target) {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high){
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target){
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return "w" + Integer.toString(low + 1, 36);
+        }
+    }
+
+    @Benchmark
+    public List<Long> commonTerm(Corpus corpus) {
+        return corpus.index.search(corpus.commonTerm, null, Long.MAX_VALUE, TOP_K);
+    }
+
+    @Benchmark
+    public List<Long> rareTerm(Corpus corpus) {
+        return corpus.index.search(corpus.rareTerm, null, Long.MAX_VALUE, TOP_K);
+    }
+
+    @Benchmark
+    public List<Long> twoTerms(Corpus corpus) {
+        return corpus.index.search(corpus.commonTerm + " " + corpus.rareTerm, null, Long.MAX_VALUE, TOP_K);
+    }
+
+    @Benchmark
+    public List<Long> phrase(Corpus corpus) {
+        return corpus.index.search("\"" + PHRASE + "\"", null, Long.MAX_VALUE, TOP_K);
+    }
+
+    @Benchmark
+    public List<Long> termOfUser(Corpus corpus) {
+        return corpus.index.search(corpus.commonTerm, "bench-user7", Long.MAX_VALUE, TOP_K);
+    }
+
+    // What a LIKE '%term%' query ordered by id does: scan from the newest wave until k rows match.
+    @Benchmark
+    public List<Long> scanRareTerm(Corpus corpus) {
+        return scan(corpus, corpus.rareTerm);
+    }
+
+    @Benchmark
+    public List<Long> scanPhrase(Corpus corpus) {
+        return scan(corpus, PHRASE);
+    }
+
+    @Benchmark
+    public long indexWave(Corpus corpus) {
+        long id = corpus.nextId++;
+        corpus.index.add(id, "bench-user0", corpus.contents.get((int) (id % corpus.documents)));
+        return id;
+    }
+
+    private static List<Long> scan(Corpus corpus, String text) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = corpus.contents.size() - 1; i >= 0 && ids.size() < TOP_K; i--){
+            if (corpus.contents.get(i).contains(text)){
+                ids.add((long) i + 1);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,143 @@
+package com.waver.benchmarks;
+
+import com.waver.WaverApplication;
+import com.waver.services.UsernameFilter;
+import org.apache.commons.io.FileUtils;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Boots the whole application, on a random port, against a fresh in-memory H2 database seeded with
+// waveCount waves spread over userCount users. Every seeded user logs in with PASSWORD.
+public class SeededApplication implements AutoCloseable {
+
+    public static final String PASSWORD = "P4ssword";
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+
+    private final Path uploadPath;
+
+    private final int userCount;
+
+    private final int waveCount;
+
+    private final long firstWaveId;
+
+    private final long lastWaveId;
+
+    public SeededApplication(int userCount, int waveCount) throws IOException {
+        this.userCount = userCount;
+        this.waveCount = waveCount;
+        this.firstWaveId = userCount + 1;
+        this.lastWaveId = firstWaveId + waveCount - 1;
+        this.uploadPath = Files.createTempDirectory("waver-benchmarks");
+        this.context = new SpringApplicationBuilder(WaverApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run("--spring.profiles.active=benchmark",
+                        "--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:waver-benchmarks-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--waver.upload-path=" + uploadPath);
+        seed(context.getBean(JdbcTemplate.class));
+        verifyQueryPlans(context.getBean(JdbcTemplate.class));
+        // Seeding bypasses JPA, so the usernames have to be loaded into the filter again.
+        context.getBean(UsernameFilter.class).rebuild();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getPort() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public int getWaveCount() {
+        return waveCount;
+    }
+
+    public long getFirstWaveId() {
+        return firstWaveId;
+    }
+
+    public long getLastWaveId() {
+        return lastWaveId;
+    }
+
+    public long getUserId(int index) {
+        return index + 1;
+    }
+
+    public String getUsername(int index) {
+        return "bench-user" + index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        FileUtils.deleteDirectory(uploadPath.toFile());
+    }
+
+    // Plain JDBC batches keep seeding large datasets fast enough to run once per trial.
+    private void seed(JdbcTemplate jdbcTemplate) {
+        String encodedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+        List<Object[]> userRows = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++){
+            userRows.add(new Object[]{getUserId(i), "display-" + i, encodedPassword, getUsername(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into user (id, display_name, password, username) values (?, ?, ?, ?)", userRows);
+
+        long now = System.currentTimeMillis();
+        List<Object[]> waveRows = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (long id = firstWaveId; id <= lastWaveId; id++){
+            long userId = (id % userCount) + 1;
+            waveRows.add(new Object[]{id, "Seeded wave content number " + id, new Timestamp(now - (lastWaveId - id) * 1000), userId});
+            if (waveRows.size() == INSERT_BATCH_SIZE){
+                jdbcTemplate.batchUpdate("insert into wave (id, content, timestamp, user_id) values (?, ?, ?, ?)", waveRows);
+                waveRows.clear();
+            }
+        }
+        if (!waveRows.isEmpty()){
+            jdbcTemplate.batchUpdate("insert into wave (id, content, timestamp, user_id) values (?, ?, ?, ?)", waveRows);
+        }
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (lastWaveId + 1));
+        jdbcTemplate.execute("alter sequence wave_sequence restart with " + (lastWaveId + 1));
+        jdbcTemplate.execute("analyze");
+    }
+
+    // A benchmark over a table scan measures the wrong thing, so refuse to run when the seeded tables skip the indexes.
+    private void verifyQueryPlans(JdbcTemplate jdbcTemplate) {
+        verifyQueryPlan(jdbcTemplate, "uk_user_username",
+                "select * from user where username = '" + getUsername(0) + "'");
+        verifyQueryPlan(jdbcTemplate, "idx_wave_user_id_id",
+                "select * from wave where user_id = " + getUserId(0) + " and id < " + lastWaveId + " order by id desc limit 5");
+    }
+
+    private void verifyQueryPlan(JdbcTemplate jdbcTemplate, String index, String query) {
+        String plan = jdbcTemplate.queryForObject("explain " + query, String.class);
+        if (!plan.toLowerCase().contains(index) || plan.contains("tableScan")){
+            throw new IllegalStateException("Expected " + index + " to be used on the seeded data, but the plan is: " + plan);
+        }
+    }
+}
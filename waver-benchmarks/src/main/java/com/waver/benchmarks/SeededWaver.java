@@ -0,0 +1,69 @@
+package com.waver.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waver.model.user.User;
+import com.waver.model.user.UserRepository;
+import com.waver.services.UserService;
+import com.waver.services.WaveService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class SeededWaver {
+
+    @Param({"10000"})
+    public int waveCount;
+
+    @Param({"100"})
+    public int userCount;
+
+    SeededApplication application;
+
+    WaveService waveService;
+
+    UserService userService;
+
+    ObjectMapper objectMapper;
+
+    List<User> users;
+
+    long firstWaveId;
+
+    long lastWaveId;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = new SeededApplication(userCount, waveCount);
+        waveService = application.getBean(WaveService.class);
+        userService = application.getBean(UserService.class);
+        objectMapper = application.getBean(ObjectMapper.class);
+        users = application.getBean(UserRepository.class).findAll();
+        firstWaveId = application.getFirstWaveId();
+        lastWaveId = application.getLastWaveId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    User randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    String username(int index) {
+        return application.getUsername(index);
+    }
+
+    long middleWaveId() {
+        return firstWaveId + waveCount / 2;
+    }
+}
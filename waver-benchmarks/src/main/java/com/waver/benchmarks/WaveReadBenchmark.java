@@ -0,0 +1,64 @@
+package com.waver.benchmarks;
+
+import com.waver.model.wave.Wave;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaveReadBenchmark {
+
+    // Same request the frontend sends when it loads a feed.
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id"));
+
+    @Benchmark
+    public Page<Wave> getAllWaves(SeededWaver waver) {
+        return waver.waveService.getAllWaves(FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<Wave> getWavesOfUser(SeededWaver waver) {
+        return waver.waveService.getWavesOfUser(waver.username(0), FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Slice<Wave> getOldWaves(SeededWaver waver) {
+        return waver.waveService.getOldWaves(waver.middleWaveId(), null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Slice<Wave> getOldWavesOfUser(SeededWaver waver) {
+        return waver.waveService.getOldWaves(waver.middleWaveId(), waver.username(0), FIRST_PAGE);
+    }
+
+    @Benchmark
+    public List<Wave> getNewWaves(SeededWaver waver) {
+        return waver.waveService.getNewWaves(waver.lastWaveId - 5, null, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public long getNewWavesCount(SeededWaver waver) {
+        return waver.waveService.getNewWavesCount(waver.middleWaveId(), null);
+    }
+
+    @Benchmark
+    public long getNewWavesCountOfUser(SeededWaver waver) {
+        return waver.waveService.getNewWavesCount(waver.middleWaveId(), waver.username(0));
+    }
+}
@@ -0,0 +1,71 @@
+package com.waver.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveViewModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaveSerializationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LoadedPage {
+
+        @Param({"20"})
+        public int pageSize;
+
+        List<Wave> waves;
+
+        List<WaveViewModel> viewModels;
+
+        ObjectMapper applicationMapper;
+
+        ObjectMapper plainMapper;
+
+        @Setup(Level.Trial)
+        public void load(SeededWaver waver) {
+            waves = waver.waveService.getAllWaves(PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "id"))).getContent();
+            viewModels = waves.stream().map(WaveViewModel::new).collect(Collectors.toList());
+            applicationMapper = waver.objectMapper;
+            plainMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    @Benchmark
+    public List<WaveViewModel> mapToViewModels(LoadedPage page) {
+        return page.waves.stream().map(WaveViewModel::new).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeWithApplicationMapper(LoadedPage page) throws JsonProcessingException {
+        return page.applicationMapper.writeValueAsBytes(page.viewModels);
+    }
+
+    @Benchmark
+    public byte[] serializeWithPlainMapper(LoadedPage page) throws JsonProcessingException {
+        return page.plainMapper.writeValueAsBytes(page.viewModels);
+    }
+}
@@ -0,0 +1,27 @@
+package com.waver.benchmarks;
+
+import com.waver.model.wave.Wave;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaveWriteBenchmark {
+
+    @Benchmark
+    public Wave save(SeededWaver waver) {
+        Wave wave = new Wave();
+        wave.setContent("Benchmark wave content");
+        return waver.waveService.save(waver.randomUser(), wave);
+    }
+}
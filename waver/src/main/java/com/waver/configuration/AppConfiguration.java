@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "waver")
@@ -15,6 +18,86 @@ public class AppConfiguration {
 
     String attachmentsFolder = "attachments";
 
+    long maxAttachmentSize = 10 * 1024 * 1024;
+
+    long authCacheTtlSeconds = 300;
+
+    int authCacheMaxSize = 10000;
+
+    String tokenSecret;
+
+    long accessTokenTtlSeconds = 15 * 60;
+
+    long refreshTokenTtlSeconds = 14 * 24 * 60 * 60;
+
+    int attachmentWorkerThreads = 2;
+
+    int attachmentQueueCapacity = 100;
+
+    long attachmentAwaitTimeoutSeconds = 30;
+
+    List<Integer> imageVariantSizes = Arrays.asList(64, 256, 1024);
+
+    long maxVariantSourcePixels = 25_000_000;
+
+    boolean contentAddressedStorage = false;
+
+    String stagingFolder = "staging";
+
+    String storageBackend = "local";
+
+    String s3Endpoint;
+
+    String s3Bucket;
+
+    String s3Region = "us-east-1";
+
+    String s3AccessKey;
+
+    String s3SecretKey;
+
+    long imageMetadataCacheTtlSeconds = 60;
+
+    int imageMetadataCacheMaxSize = 10000;
+
+    int cleanupBatchSize = 500;
+
+    int cleanupDeleteThreads = 4;
+
+    long cleanupLockLeaseSeconds = 10 * 60;
+
+    int homeTimelineCapacity = 800;
+
+    int homeTimelineCacheMaxSize = 10000;
+
+    long timelineFanOutFollowerLimit = 10000;
+
+    int timelineFanOutQueueCapacity = 10000;
+
+    int followerCountCacheMaxSize = 100000;
+
+    long followerCountCacheTtlSeconds = 60;
+
+    int hotFeedCacheMaxSize = 1000;
+
+    long hotFeedCacheMaxBytes = 16 * 1024 * 1024;
+
+    long hotFeedCacheTtlSeconds = 60;
+
+    int hotFeedCacheMaxPageSize = 20;
+
+    int waveJsonCacheMaxSize = 50000;
+
+    int userJsonCacheMaxSize = 10000;
+
+    long usernameFilterExpectedInsertions = 1000000;
+
+    double usernameFilterFalsePositiveProbability = 0.01;
+
+    int waveImportFlushSize = 500;
+
+    int waveImportMaxReportedErrors = 100;
+
     public String getFullProfileImagesPath() {
         return this.uploadPath + "/" + this.profileImagesFolder;
     }
@@ -22,4 +105,8 @@ public class AppConfiguration {
     public String getFullAttachmentsPath() {
         return this.uploadPath + "/" + this.attachmentsFolder;
     }
+
+    public String getFullStagingPath() {
+        return this.uploadPath + "/" + this.stagingFolder;
+    }
 }
@@ -0,0 +1,113 @@
+package com.waver.configuration;
+
+import com.waver.model.user.User;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final byte[] secret = new byte[32];
+
+    private final long ttlMillis;
+
+    private final Map<String, CachedUser> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public AuthenticationCache(AppConfiguration appConfiguration) {
+        new SecureRandom().nextBytes(secret);
+        this.ttlMillis = appConfiguration.getAuthCacheTtlSeconds() * 1000;
+        int maxSize = appConfiguration.getAuthCacheMaxSize();
+        this.entries = new LinkedHashMap<String, CachedUser>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public User get(String username, String password) {
+        String key = keyOf(username, password);
+        CachedUser cachedUser;
+        synchronized (entries){
+            cachedUser = entries.get(key);
+            if (cachedUser != null && cachedUser.expiresAt < System.currentTimeMillis()){
+                entries.remove(key);
+                cachedUser = null;
+            }
+        }
+        if (cachedUser == null){
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cachedUser.user;
+    }
+
+    public void put(String username, String password, User user) {
+        CachedUser cachedUser = new CachedUser(user, System.currentTimeMillis() + ttlMillis);
+        String key = keyOf(username, password);
+        synchronized (entries){
+            entries.put(key, cachedUser);
+        }
+    }
+
+    public void evict(String username) {
+        synchronized (entries){
+            entries.values().removeIf(cachedUser -> cachedUser.user.getUsername().equals(username));
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries){
+            return entries.size();
+        }
+    }
+
+    private String keyOf(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedUser {
+
+        private final User user;
+
+        private final long expiresAt;
+
+        private CachedUser(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.waver.configuration;
+
+import com.waver.model.user.User;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final AuthenticationCache authenticationCache;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, AuthenticationCache authenticationCache) {
+        this.delegate = delegate;
+        this.authenticationCache = authenticationCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || credentials == null){
+            return delegate.authenticate(authentication);
+        }
+        String password = credentials.toString();
+        User cachedUser = authenticationCache.get(username, password);
+        if (cachedUser != null){
+            UsernamePasswordAuthenticationToken result =
+                    new UsernamePasswordAuthenticationToken(cachedUser, null, cachedUser.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof User){
+            authenticationCache.put(username, password, (User) result.getPrincipal());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
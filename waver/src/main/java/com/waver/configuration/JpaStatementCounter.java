@@ -0,0 +1,23 @@
+package com.waver.configuration;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread, so a request can report how many it ran.
+public class JpaStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    static int get() {
+        return COUNT.get()[0];
+    }
+}
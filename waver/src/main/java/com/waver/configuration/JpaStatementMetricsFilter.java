@@ -0,0 +1,199 @@
+package com.waver.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+// Records the number of SQL statements per request, tagged like http.server.requests so the two line up.
+// The sample is recorded just before the response commits, so a client that has read the response sees it.
+public class JpaStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public JpaStatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        JpaStatementCounter.reset();
+        RecordingResponse recordingResponse = new RecordingResponse(request, response);
+        try {
+            filterChain.doFilter(request, recordingResponse);
+        } finally {
+            recordingResponse.record();
+        }
+    }
+
+    private class RecordingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private boolean recorded;
+
+        private long written;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        RecordingResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        void record() {
+            if (recorded){
+                return;
+            }
+            recorded = true;
+            DistributionSummary.builder("waver.jpa.statements")
+                    .baseUnit("statements")
+                    .tags(Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, this)))
+                    .register(meterRegistry)
+                    .record(JpaStatementCounter.get());
+        }
+
+        // A write that fills the buffer commits the response without a flush.
+        void beforeWrite(int length) {
+            written += length;
+            if (written >= getBufferSize()){
+                record();
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            record();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setStatus(sc);
+            record();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setStatus(sc);
+            record();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            record();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null){
+                outputStream = new RecordingOutputStream(this, super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null){
+                writer = new PrintWriter(new RecordingWriter(this, super.getWriter()));
+            }
+            return writer;
+        }
+    }
+
+    private static class RecordingOutputStream extends ServletOutputStream {
+
+        private final RecordingResponse response;
+
+        private final ServletOutputStream delegate;
+
+        RecordingOutputStream(RecordingResponse response, ServletOutputStream delegate) {
+            this.response = response;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            response.beforeWrite(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            response.beforeWrite(len);
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.record();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.record();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    // Counts three bytes per character, the most UTF-8 needs, so the sample is never recorded after the buffer filled.
+    private static class RecordingWriter extends Writer {
+
+        private final RecordingResponse response;
+
+        private final Writer delegate;
+
+        RecordingWriter(RecordingResponse response, Writer delegate) {
+            this.response = response;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            response.beforeWrite(len * 3);
+            delegate.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.record();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.record();
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.waver.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times the public methods of the services behind the endpoints and every repository call. Helpers that run
+// once per serialized wave, like WaveJsonCache, are left out so a page does not pay for a timer per wave.
+@Aspect
+@Component
+public class MetricsAspect {
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.waver.services.WaveService.*(..))"
+            + " || execution(public * com.waver.services.UserService.*(..))"
+            + " || execution(public * com.waver.services.FileService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("waver.service", "service", joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint);
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object proxy = joinPoint.getThis();
+        String repository = repositoryNames.computeIfAbsent(proxy.getClass(), type -> repositoryName(proxy));
+        return time("waver.repository", "repository", repository, joinPoint);
+    }
+
+    private Object time(String name, String ownerTag, String owner, ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long startedAt = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String exceptionTag = exception;
+            timers.computeIfAbsent(new TimerKey(name, owner, method, exceptionTag), key -> Timer.builder(name)
+                    .tags(ownerTag, owner, "method", method.getName(), "exception", exceptionTag)
+                    .register(meterRegistry))
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Inherited methods like findById are declared on CrudRepository, so the name comes from the proxy instead.
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)){
+            if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")){
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+
+    @Value
+    static class TimerKey {
+
+        String name;
+
+        String owner;
+
+        Method method;
+
+        String exception;
+    }
+}
@@ -0,0 +1,100 @@
+package com.waver.configuration;
+
+import com.waver.services.AttachmentCleanupJob;
+import com.waver.services.AttachmentProcessingService;
+import com.waver.services.FileService;
+import com.waver.services.HomeTimelineService;
+import com.waver.services.HotFeedCache;
+import com.waver.services.UsernameFilter;
+import com.waver.services.WaveSearchIndex;
+import com.waver.services.WaveJsonCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new JpaStatementCounter());
+    }
+
+    // Ahead of the security filters, so statements run while authenticating are counted too.
+    @Bean
+    FilterRegistrationBean<JpaStatementMetricsFilter> jpaStatementMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<JpaStatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new JpaStatementMetricsFilter(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    MeterBinder waverMetrics(
+            FileService fileService,
+            AttachmentCleanupJob attachmentCleanupJob,
+            AttachmentProcessingService attachmentProcessingService,
+            AuthenticationCache authenticationCache,
+            TokenUserCache tokenUserCache,
+            HotFeedCache hotFeedCache,
+            WaveJsonCache waveJsonCache,
+            HomeTimelineService homeTimelineService,
+            UsernameFilter usernameFilter,
+            WaveSearchIndex waveSearchIndex) {
+        return registry -> {
+            Gauge.builder("waver.upload.bytes.in.flight", fileService, FileService::getUploadBytesInFlight)
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("waver.attachment.cleanup.backlog", attachmentCleanupJob, AttachmentCleanupJob::getBacklog)
+                    .register(registry);
+            FunctionCounter.builder("waver.attachment.cleanup.deleted.files", attachmentCleanupJob, AttachmentCleanupJob::getDeletedFileCount)
+                    .register(registry);
+            FunctionCounter.builder("waver.attachment.cleanup.failed.files", attachmentCleanupJob, AttachmentCleanupJob::getFailedFileCount)
+                    .register(registry);
+            Gauge.builder("waver.attachment.processing.queued", attachmentProcessingService, AttachmentProcessingService::getQueuedCount)
+                    .register(registry);
+            cacheRequests(registry, "authentication", authenticationCache,
+                    AuthenticationCache::getHitCount, AuthenticationCache::getMissCount);
+            cacheRequests(registry, "token-user", tokenUserCache, TokenUserCache::getHitCount, TokenUserCache::getMissCount);
+            cacheRequests(registry, "hot-feed", hotFeedCache, HotFeedCache::getHitCount, HotFeedCache::getMissCount);
+            cacheRequests(registry, "wave-json", waveJsonCache, WaveJsonCache::getHitCount, WaveJsonCache::getMissCount);
+            Gauge.builder("waver.cache.bytes", hotFeedCache, HotFeedCache::getCachedBytes)
+                    .tag("cache", "hot-feed")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("waver.timeline.fanout.writes", homeTimelineService, HomeTimelineService::getFanOutWriteCount)
+                    .register(registry);
+            FunctionCounter.builder("waver.timeline.loads", homeTimelineService, HomeTimelineService::getTimelineLoadCount)
+                    .register(registry);
+            Gauge.builder("waver.timeline.fanout.queued", homeTimelineService, HomeTimelineService::getPendingFanOutCount)
+                    .register(registry);
+            FunctionCounter.builder("waver.username.checks", usernameFilter, UsernameFilter::getFreeCount)
+                    .tag("result", "filtered")
+                    .register(registry);
+            FunctionCounter.builder("waver.username.checks", usernameFilter, UsernameFilter::getLookupCount)
+                    .tag("result", "lookup")
+                    .register(registry);
+            Gauge.builder("waver.search.documents", waveSearchIndex, WaveSearchIndex::getDocumentCount)
+                    .register(registry);
+        };
+    }
+
+    private static <T> void cacheRequests(MeterRegistry registry, String cache, T source,
+                                          ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder("waver.cache.requests", source, hits)
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("waver.cache.requests", source, misses)
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+    }
+}
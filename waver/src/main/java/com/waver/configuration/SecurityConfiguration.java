@@ -1,8 +1,10 @@
 package com.waver.configuration;
 
+import com.waver.services.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,6 +13,7 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
@@ -19,19 +22,29 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Autowired
     AuthenticationUserService authenticationUserService;
 
+    @Autowired
+    AuthenticationCache authenticationCache;
+
+    @Autowired
+    TokenService tokenService;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.csrf().disable();
 
         http.headers().disable();
         http.httpBasic().authenticationEntryPoint(new BasicAuthenticationEntryPoint());
+        http.addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
 
         http.
             authorizeRequests()
                 .antMatchers(HttpMethod.POST, "/api/1.0/login").authenticated()
                 .antMatchers(HttpMethod.PUT, "/api/1.0/users/{id:[0-9]+}").authenticated()
                 .antMatchers(HttpMethod.POST, "/api/1.0/waves/**").authenticated()
+                .antMatchers(HttpMethod.GET, "/api/1.0/waves/upload/{id:[0-9]+}").authenticated()
                 .antMatchers(HttpMethod.DELETE, "/api/1.0/waves/{id:[0-9]+}").authenticated()
+                .antMatchers(HttpMethod.GET, "/api/1.0/waves/home").authenticated()
+                .antMatchers("/api/1.0/users/{username}/follow").authenticated()
             .and()
             .authorizeRequests().anyRequest().permitAll();
 
@@ -40,7 +53,15 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(authenticationUserService).passwordEncoder(passwordEncoder());
+        auth.authenticationProvider(cachingAuthenticationProvider());
+    }
+
+    @Bean
+    public CachingAuthenticationProvider cachingAuthenticationProvider(){
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(authenticationUserService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
     }
 
     @Bean
@@ -0,0 +1,34 @@
+package com.waver.configuration;
+
+import com.waver.storage.AwsSignatureV4;
+import com.waver.storage.LocalStorageBackend;
+import com.waver.storage.S3StorageBackend;
+import com.waver.storage.ShardedStorageBackend;
+import com.waver.storage.StorageBackend;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfiguration {
+
+    @Bean
+    StorageBackend storageBackend(AppConfiguration appConfiguration) {
+        switch (appConfiguration.getStorageBackend()){
+            case "local":
+                return new LocalStorageBackend(Paths.get(appConfiguration.getUploadPath()));
+            case "sharded":
+                return new ShardedStorageBackend(Paths.get(appConfiguration.getUploadPath()));
+            case "s3":
+                AwsSignatureV4 signer = new AwsSignatureV4(
+                        appConfiguration.getS3AccessKey(),
+                        appConfiguration.getS3SecretKey(),
+                        appConfiguration.getS3Region(),
+                        "s3");
+                return new S3StorageBackend(appConfiguration.getS3Endpoint(), appConfiguration.getS3Bucket(), signer);
+            default:
+                throw new IllegalStateException("Unknown storage backend: " + appConfiguration.getStorageBackend());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.waver.configuration;
+
+import com.waver.model.user.User;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Users behind bearer tokens, by id, so an access token resolves to the current row without a query per request.
+@Component
+public class TokenUserCache {
+
+    private final long ttlMillis;
+
+    private final Map<Long, CachedUser> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public TokenUserCache(AppConfiguration appConfiguration) {
+        this.ttlMillis = appConfiguration.getAuthCacheTtlSeconds() * 1000;
+        int maxSize = appConfiguration.getAuthCacheMaxSize();
+        this.entries = new LinkedHashMap<Long, CachedUser>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedUser> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public User get(long id) {
+        CachedUser cachedUser;
+        synchronized (entries){
+            cachedUser = entries.get(id);
+            if (cachedUser != null && cachedUser.expiresAt < System.currentTimeMillis()){
+                entries.remove(id);
+                cachedUser = null;
+            }
+        }
+        if (cachedUser == null){
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cachedUser.user;
+    }
+
+    public void put(User user) {
+        CachedUser cachedUser = new CachedUser(user, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries){
+            entries.put(user.getId(), cachedUser);
+        }
+    }
+
+    public void evict(long id) {
+        synchronized (entries){
+            entries.remove(id);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class CachedUser {
+
+        private final User user;
+
+        private final long expiresAt;
+
+        private CachedUser(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
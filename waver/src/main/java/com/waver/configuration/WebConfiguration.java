@@ -5,12 +5,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.CacheControl;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.io.File;
-import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
@@ -18,19 +15,13 @@ public class WebConfiguration implements WebMvcConfigurer {
     @Autowired
     AppConfiguration appConfiguration;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:" + appConfiguration.getUploadPath() + "/")
-                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS));
-    }
-
     @Bean
     CommandLineRunner createUploadFolder(){
         return (args) -> {
             createNonExistingFolder(appConfiguration.getUploadPath());
             createNonExistingFolder(appConfiguration.getFullProfileImagesPath());
             createNonExistingFolder(appConfiguration.getFullAttachmentsPath());
+            createNonExistingFolder(appConfiguration.getFullStagingPath());
         };
     }
 
@@ -1,13 +1,23 @@
 package com.waver.controller;
 
+import com.waver.exception.CustomNotFoundException;
 import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentVM;
+import com.waver.model.user.User;
+import com.waver.services.AttachmentProcessingService;
 import com.waver.services.FileService;
+import com.waver.shared.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.UUID;
 
@@ -18,8 +28,25 @@ public class FileUploadController {
     @Autowired
     FileService fileService;
 
+    @Autowired
+    AttachmentProcessingService attachmentProcessingService;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
     @PostMapping("/waves/upload")
-    FileAttachment uploadForWave(MultipartFile file){
-        return fileService.saveAttachment(file);
+    FileAttachment uploadForWave(MultipartFile file, @RequestParam(name = "async", defaultValue = "false") boolean async, @CurrentUser User user) throws IOException {
+        if (async){
+            return attachmentProcessingService.saveAttachmentAsync(file, user);
+        }
+        return fileService.saveAttachment(file, user);
+    }
+
+    @GetMapping("/waves/upload/{id:[0-9]+}")
+    FileAttachmentVM getUploadStatus(@PathVariable long id, @CurrentUser User user){
+        return fileAttachmentRepository.findById(id)
+                .filter(attachment -> attachment.getOwnerId() != null && attachment.getOwnerId() == user.getId())
+                .map(FileAttachmentVM::new)
+                .orElseThrow(() -> new CustomNotFoundException("Attachment with id " + id + " not found"));
     }
 }
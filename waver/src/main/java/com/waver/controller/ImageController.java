@@ -0,0 +1,208 @@
+package com.waver.controller;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.storage.StoredObjectMetadata;
+import com.waver.storage.StoredObjectMetadataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class ImageController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).getHeaderValue();
+
+    // Uploaded markup or script served under its own type would run on this origin, so it goes out as a download.
+    private static final Set<String> ACTIVE_CONTENT_TYPES = new HashSet<>(Arrays.asList(
+            "text/html", "application/xhtml+xml", "image/svg+xml", "text/xml", "application/xml",
+            "application/javascript", "text/javascript"));
+
+    @Autowired
+    StoredObjectMetadataCache metadataCache;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @GetMapping("/images/{folder}/{name:[\\w-]+(?:\\.[\\w-]+)*}")
+    void getImage(@PathVariable String folder, @PathVariable String name,
+                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!folder.equals(appConfiguration.getProfileImagesFolder()) && !folder.equals(appConfiguration.getAttachmentsFolder())){
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String key = folder + "/" + name;
+        StoredObjectMetadata image = metadataCache.get(key);
+        if (image == null){
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, image.getEtag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, image.getLastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (isNotModified(request, image)){
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = image.getLength() - 1;
+        long[] range = parseRange(request, image);
+        if (range != null){
+            if (range.length == 0){
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.getLength());
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + image.getLength());
+        }
+        long count = end - start + 1;
+        response.setContentType(contentType(image));
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0){
+            return;
+        }
+
+        try {
+            if (image.getFile() != null){
+                sendFile(request, response, image, start, count);
+            } else {
+                sendStream(response, image, start, count);
+            }
+        } catch (NoSuchFileException e) {
+            metadataCache.evict(key);
+            response.reset();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
+    private String contentType(StoredObjectMetadata image) {
+        String contentType = image.getContentType();
+        if (contentType == null || ACTIVE_CONTENT_TYPES.contains(contentType)){
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        return contentType;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, StoredObjectMetadata image) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null){
+            for (String tag : ifNoneMatch.split(",")){
+                String candidate = tag.trim();
+                if (candidate.equals("*") || candidate.equals(image.getEtag()) || candidate.equals("W/" + image.getEtag())){
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && image.getLastModified() <= ifModifiedSince;
+    }
+
+    // Returns null to serve the whole file, an empty array when the range cannot be satisfied,
+    // or {start, end} inclusive. Multi-range requests are answered with the whole file.
+    private long[] parseRange(HttpServletRequest request, StoredObjectMetadata image) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=") || rangeHeader.contains(",")){
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(image.getEtag())){
+            return null;
+        }
+        String spec = rangeHeader.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0){
+            return null;
+        }
+        long length = image.getLength();
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()){
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0){
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end){
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sendFile(HttpServletRequest request, HttpServletResponse response,
+                          StoredObjectMetadata image, long start, long count) throws IOException {
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))){
+            request.setAttribute(SENDFILE_FILENAME, image.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(image.getFile(), StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0){
+                long transferred = channel.transferTo(position, remaining, output);
+                if (transferred <= 0){
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private void sendStream(HttpServletResponse response, StoredObjectMetadata image, long start, long count) throws IOException {
+        try (InputStream inputStream = image.getResource().getInputStream()) {
+            OutputStream output = response.getOutputStream();
+            StreamUtils.copyRange(inputStream, output, start, start + count - 1);
+        }
+    }
+}
@@ -1,19 +1,48 @@
 package com.waver.controller;
 
+import com.waver.configuration.AppConfiguration;
 import com.waver.model.user.User;
-import com.waver.model.user.viewmodel.UserViewModel;
+import com.waver.model.user.viewmodel.LoginViewModel;
+import com.waver.model.user.viewmodel.RefreshTokenViewModel;
+import com.waver.services.TokenService;
 import com.waver.shared.CurrentUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.Valid;
+
 @RestController
 public class LoginController {
 
+    @Autowired
+    TokenService tokenService;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
     @PostMapping("/api/1.0/login")
-    UserViewModel handleLogin(@CurrentUser User loggedInUser){
+    LoginViewModel handleLogin(@CurrentUser User loggedInUser){
 
-        return new UserViewModel(loggedInUser);
+        return createLoginViewModel(loggedInUser);
     }
 
+    @PostMapping("/api/1.0/login/refresh")
+    LoginViewModel refreshLogin(@Valid @RequestBody RefreshTokenViewModel refreshRequest){
+        User tokenUser = tokenService.verify(refreshRequest.getRefreshToken(), TokenService.REFRESH_TOKEN);
+        if (tokenUser == null){
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return createLoginViewModel(tokenUser);
+    }
 
+    private LoginViewModel createLoginViewModel(User user) {
+        return new LoginViewModel(
+                user,
+                tokenService.createAccessToken(user),
+                tokenService.createRefreshToken(user),
+                appConfiguration.getAccessTokenTtlSeconds());
+    }
 }
@@ -5,6 +5,7 @@ import com.waver.exception.CustomNotFoundException;
 import com.waver.model.user.User;
 import com.waver.model.user.viewmodel.UserUpdateViewModel;
 import com.waver.model.user.viewmodel.UserViewModel;
+import com.waver.services.FollowService;
 import com.waver.services.UserService;
 import com.waver.shared.CurrentUser;
 import com.waver.shared.GenericResponse;
@@ -30,6 +31,9 @@ public class UserController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    FollowService followService;
+
     @PostMapping(path = "/users", consumes = "application/json")
     GenericResponse createUser(@Valid @RequestBody User user){
         userService.save(user);
@@ -54,4 +58,26 @@ public class UserController {
         User updatedUser = userService.update(id, userUpdate);
         return new UserViewModel(updatedUser);
     }
+
+    @PostMapping("/users/{username}/follow")
+    GenericResponse follow(@PathVariable String username, @CurrentUser User loggedInUser){
+        followService.follow(loggedInUser, username);
+        return new GenericResponse("User followed");
+    }
+
+    @DeleteMapping("/users/{username}/follow")
+    GenericResponse unfollow(@PathVariable String username, @CurrentUser User loggedInUser){
+        followService.unfollow(loggedInUser, username);
+        return new GenericResponse("User unfollowed");
+    }
+
+    @GetMapping("/users/{username}/followers")
+    Page<UserViewModel> getFollowers(@PathVariable String username, Pageable page){
+        return followService.getFollowers(username, page).map(UserViewModel::new);
+    }
+
+    @GetMapping("/users/{username}/following")
+    Page<UserViewModel> getFollowing(@PathVariable String username, Pageable page){
+        return followService.getFollowing(username, page).map(UserViewModel::new);
+    }
 }
@@ -1,20 +1,32 @@
 package com.waver.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.waver.model.user.User;
 import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveImportItem;
+import com.waver.model.wave.WaveImportResult;
 import com.waver.model.wave.WaveViewModel;
+import com.waver.services.HomeTimelineService;
+import com.waver.services.HotFeedCache;
+import com.waver.services.WaveImportService;
+import com.waver.services.WaveNotificationService;
 import com.waver.services.WaveService;
 import com.waver.shared.CurrentUser;
+import com.waver.shared.CursorSlice;
 import com.waver.shared.GenericResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.annotation.AccessType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,19 +38,69 @@ public class WaveController {
     @Autowired
     WaveService waveService;
 
+    @Autowired
+    WaveNotificationService waveNotificationService;
+
+    @Autowired
+    HomeTimelineService homeTimelineService;
+
+    @Autowired
+    HotFeedCache hotFeedCache;
+
+    @Autowired
+    WaveImportService waveImportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     @PostMapping("/waves")
     WaveViewModel generateWave(@Valid @RequestBody Wave wave, @CurrentUser User user){
         return new WaveViewModel(waveService.save(user, wave));
     }
 
+    // Takes a JSON array of waves, read element by element rather than bound as a list.
+    @PostMapping(path = "/waves/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    WaveImportResult importWaves(HttpServletRequest request, @CurrentUser User user) throws IOException {
+        try (MappingIterator<WaveImportItem> items = objectMapper.readerFor(WaveImportItem.class).readValues(request.getInputStream())){
+            return waveImportService.importWaves(user, items);
+        }
+    }
+
     @GetMapping("/waves")
-    Page<WaveViewModel> getAllWaves(Pageable pageable){
-        return waveService.getAllWaves(pageable).map(WaveViewModel::new);
+    ResponseEntity<?> getAllWaves(Pageable pageable){
+        if (hotFeedCache.isCacheable(pageable)){
+            byte[] body = hotFeedCache.get(null, pageable, () -> waveService.getAllWaves(pageable).map(WaveViewModel::new));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        return ResponseEntity.ok(waveService.getAllWaves(pageable).map(WaveViewModel::new));
+    }
+
+    @GetMapping("/waves/home")
+    CursorSlice<WaveViewModel> getHomeTimeline(
+            @CurrentUser User user,
+            @RequestParam(name = "before", required = false) Long before,
+            Pageable pageable){
+        long cursor = before == null ? Long.MAX_VALUE : before;
+        return new CursorSlice<>(homeTimelineService.getHomeTimeline(user, cursor, pageable.getPageSize()), WaveViewModel::new, Wave::getId);
+    }
+
+    @GetMapping("/waves/search")
+    CursorSlice<WaveViewModel> searchWaves(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "username", required = false) String username,
+            @RequestParam(name = "before", required = false) Long before,
+            Pageable pageable){
+        long cursor = before == null ? Long.MAX_VALUE : before;
+        return new CursorSlice<>(waveService.searchWaves(query, username, cursor, pageable.getPageSize()), WaveViewModel::new, Wave::getId);
     }
 
     @GetMapping("/users/{username}/waves")
-    Page<WaveViewModel> getWavesOfUser(@PathVariable String username, Pageable pageable){
-        return waveService.getWavesOfUser(username, pageable).map(WaveViewModel::new);
+    ResponseEntity<?> getWavesOfUser(@PathVariable String username, Pageable pageable){
+        if (hotFeedCache.isCacheable(pageable)){
+            byte[] body = hotFeedCache.get(username, pageable, () -> waveService.getWavesOfUser(username, pageable).map(WaveViewModel::new));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        return ResponseEntity.ok(waveService.getWavesOfUser(username, pageable).map(WaveViewModel::new));
     }
 
     @GetMapping({"/waves/{id:[0-9]+}", "/users/{username}/waves/{id:[0-9]+}"})
@@ -49,7 +111,7 @@ public class WaveController {
             @RequestParam(name = "direction", defaultValue = "after") String direction,
             @RequestParam(name = "count", defaultValue = "false", required = false) boolean count){
         if (!direction.equalsIgnoreCase("after")){
-            return ResponseEntity.ok(waveService.getOldWaves(id, username, pageable).map(WaveViewModel::new));
+            return ResponseEntity.ok(new CursorSlice<>(waveService.getOldWaves(id, username, pageable), WaveViewModel::new, Wave::getId));
         }
         if (count){
             long newWaveCount = waveService.getNewWavesCount(id, username);
@@ -61,6 +123,11 @@ public class WaveController {
         return ResponseEntity.ok(newWaves);
     }
 
+    @GetMapping(path = {"/waves/stream", "/users/{username}/waves/stream"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamNewWaves(@PathVariable(required = false) String username){
+        return waveNotificationService.subscribe(username);
+    }
+
     @DeleteMapping("/waves/{id:[0-9]+}")
     @PreAuthorize("@waveSecurityService.isAllowedToDelete(#id, principal)")
     GenericResponse deleteWave(@PathVariable long id){
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class AttachmentTooLargeException extends RuntimeException {
+
+    public AttachmentTooLargeException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class InvalidAttachmentException extends RuntimeException {
+
+    public InvalidAttachmentException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class InvalidProfileImageException extends RuntimeException {
+
+    public InvalidProfileImageException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class SelfFollowException extends RuntimeException {
+
+    public SelfFollowException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class UploadQueueFullException extends RuntimeException {
+
+    public UploadQueueFullException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,8 @@
+package com.waver.exception;
+
+public class UsernameTakenException extends RuntimeException {
+
+    public UsernameTakenException(String errorMessage){
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,22 @@
+package com.waver.model.file;
+
+import lombok.Data;
+
+@Data
+public class AttachmentStatusChangedEvent {
+
+    private long attachmentId;
+
+    private long waveId;
+
+    private String username;
+
+    private FileAttachmentStatus status;
+
+    public AttachmentStatusChangedEvent(long attachmentId, long waveId, String username, FileAttachmentStatus status){
+        this.attachmentId = attachmentId;
+        this.waveId = waveId;
+        this.username = username;
+        this.status = status;
+    }
+}
@@ -1,5 +1,6 @@
 package com.waver.model.file;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.waver.model.wave.Wave;
 import lombok.Data;
 
@@ -21,6 +22,15 @@ public class FileAttachment {
 
     private String fileType;
 
+    private String variants;
+
+    @Enumerated(EnumType.STRING)
+    private FileAttachmentStatus status;
+
     @OneToOne
     private Wave wave;
+
+    // Id of the user who uploaded the file; only that user may look at it before it is attached to a wave.
+    @JsonIgnore
+    private Long ownerId;
 }
@@ -1,11 +1,44 @@
-package com.waver.model.file;
-
-import org.springframework.data.jpa.repository.JpaRepository;
-
-import java.util.Date;
-import java.util.List;
-
-public interface FileAttachmentRepository extends JpaRepository<FileAttachment, Long> {
-
-    List<FileAttachment> findByDateBeforeAndWaveIsNull(Date date);
-}
+package com.waver.model.file;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface FileAttachmentRepository extends JpaRepository<FileAttachment, Long> {
+
+    List<FileAttachment> findByDateBeforeAndWaveIsNull(Date date);
+
+    @Query("select count(a) from FileAttachment a where a.date < :date and a.wave is null")
+    long countOrphansBefore(@Param("date") Date date);
+
+    @Query("select a.id, a.name from FileAttachment a where a.date < :date and a.wave is null and a.id > :id order by a.id")
+    List<Object[]> findOrphanIdsAndNamesAfter(@Param("date") Date date, @Param("id") long id, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from FileAttachment a where a.id in :ids and a.wave is null")
+    int deleteOrphansByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select a.id from FileAttachment a where a.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select w.id, u.username from FileAttachment a join a.wave w join w.user u where a.id = :id")
+    List<Object[]> findWaveIdAndUsernameById(@Param("id") long id);
+
+    @Transactional
+    @Modifying
+    @Query("update FileAttachment a set a.name = :name, a.fileType = :fileType, a.variants = :variants, a.status = :status where a.id = :id")
+    int updateProcessingResult(
+            @Param("id") long id,
+            @Param("name") String name,
+            @Param("fileType") String fileType,
+            @Param("variants") String variants,
+            @Param("status") FileAttachmentStatus status);
+}
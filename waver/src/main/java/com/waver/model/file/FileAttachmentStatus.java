@@ -0,0 +1,7 @@
+package com.waver.model.file;
+
+public enum FileAttachmentStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -1,18 +1,30 @@
 package com.waver.model.file;
 
+import com.waver.shared.ImageVariants;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 public class FileAttachmentVM {
 
+    private long id;
+
     private String name;
 
     private String fileType;
 
+    private FileAttachmentStatus status;
+
+    private Map<Integer, String> variants;
+
     public FileAttachmentVM(FileAttachment fileAttachment){
+        this.setId(fileAttachment.getId());
         this.setName(fileAttachment.getName());
         this.setFileType(fileAttachment.getFileType());
+        this.setStatus(fileAttachment.getStatus());
+        this.setVariants(ImageVariants.toMap(fileAttachment.getName(), fileAttachment.getVariants()));
     }
 }
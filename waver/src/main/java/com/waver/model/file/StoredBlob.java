@@ -0,0 +1,20 @@
+package com.waver.model.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+
+    @Id
+    private String path;
+
+    private long refCount;
+}
@@ -0,0 +1,25 @@
+package com.waver.model.file;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update StoredBlob b set b.refCount = b.refCount + 1 where b.path = :path")
+    int incrementRefCount(@Param("path") String path);
+
+    @Transactional
+    @Modifying
+    @Query("update StoredBlob b set b.refCount = b.refCount - 1 where b.path = :path and b.refCount > 0")
+    int decrementRefCount(@Param("path") String path);
+
+    @Transactional
+    @Modifying
+    @Query("delete from StoredBlob b where b.path = :path and b.refCount <= 0")
+    int deleteUnreferenced(@Param("path") String path);
+}
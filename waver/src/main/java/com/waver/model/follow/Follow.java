@@ -0,0 +1,25 @@
+package com.waver.model.follow;
+
+import com.waver.model.user.User;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Data
+@Entity
+public class Follow {
+
+    @Id
+    @GeneratedValue
+    private long id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date timestamp;
+
+    @ManyToOne
+    private User follower;
+
+    @ManyToOne
+    private User followee;
+}
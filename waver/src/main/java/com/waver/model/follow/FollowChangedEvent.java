@@ -0,0 +1,17 @@
+package com.waver.model.follow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FollowChangedEvent {
+
+    private long followerId;
+
+    private long followeeId;
+
+    private boolean following;
+
+    private long followerCount;
+}
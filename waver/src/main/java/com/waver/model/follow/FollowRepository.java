@@ -0,0 +1,38 @@
+package com.waver.model.follow;
+
+import com.waver.model.user.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+
+    boolean existsByFollowerIdAndFolloweeId(long followerId, long followeeId);
+
+    long countByFolloweeId(long followeeId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Follow f where f.follower.id = :followerId and f.followee.id = :followeeId")
+    int deleteByFollowerIdAndFolloweeId(@Param("followerId") long followerId, @Param("followeeId") long followeeId);
+
+    @Query("select f.follower.id from Follow f where f.followee.id = :id")
+    List<Long> findFollowerIds(@Param("id") long followeeId);
+
+    @Query("select f.followee.id from Follow f where f.follower.id = :id")
+    List<Long> findFolloweeIds(@Param("id") long followerId);
+
+    @Query(value = "select f.follower from Follow f where f.followee = :user order by f.id desc",
+            countQuery = "select count(f) from Follow f where f.followee = :user")
+    Page<User> findFollowers(@Param("user") User followee, Pageable pageable);
+
+    @Query(value = "select f.followee from Follow f where f.follower = :user order by f.id desc",
+            countQuery = "select count(f) from Follow f where f.follower = :user")
+    Page<User> findFollowing(@Param("user") User follower, Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package com.waver.model.lock;
+
+import lombok.Data;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+@Data
+@Entity
+public class SchedulerLock {
+
+    @Id
+    private String name;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lockedUntil;
+
+    private String lockedBy;
+}
@@ -0,0 +1,23 @@
+package com.waver.model.lock;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :until, l.lockedBy = :owner "
+            + "where l.name = :name and (l.lockedUntil <= :now or l.lockedBy = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") Date now, @Param("until") Date until);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :now where l.name = :name and l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Date now);
+}
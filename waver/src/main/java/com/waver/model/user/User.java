@@ -17,6 +17,7 @@ import java.util.List;
 
 @Data
 @Entity
+@EntityListeners(UserEntityListener.class)
 public class User implements UserDetails {
 
     @Id
@@ -40,6 +41,8 @@ public class User implements UserDetails {
 
     private String image;
 
+    private String imageVariants;
+
     @OneToMany(mappedBy = "user")
     private List<Wave> waves;
 
@@ -72,4 +75,4 @@ public class User implements UserDetails {
     public boolean isEnabled() {
         return true;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
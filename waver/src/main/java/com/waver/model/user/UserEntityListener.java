@@ -0,0 +1,39 @@
+package com.waver.model.user;
+
+import com.waver.configuration.AuthenticationCache;
+import com.waver.configuration.TokenUserCache;
+import com.waver.services.UsernameFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+
+public class UserEntityListener {
+
+    @Autowired
+    ObjectProvider<AuthenticationCache> authenticationCache;
+
+    @Autowired
+    ObjectProvider<TokenUserCache> tokenUserCache;
+
+    @Autowired
+    ObjectProvider<UsernameFilter> usernameFilter;
+
+    @PostPersist
+    public void onUserPersisted(User user) {
+        if (usernameFilter != null){
+            usernameFilter.ifAvailable(filter -> filter.put(user.getUsername()));
+        }
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        if (authenticationCache != null){
+            authenticationCache.ifAvailable(cache -> cache.evict(user.getUsername()));
+        }
+        if (tokenUserCache != null){
+            tokenUserCache.ifAvailable(cache -> cache.evict(user.getId()));
+        }
+    }
+}
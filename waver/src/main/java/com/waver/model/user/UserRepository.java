@@ -3,11 +3,20 @@ package com.waver.model.user;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByUsername(String username);
 
+    boolean existsByUsername(String username);
+
+    @Query("select u.id, u.username from User u where u.id > :id order by u.id")
+    List<Object[]> findIdsAndUsernamesAfter(@Param("id") long id, Pageable pageable);
+
     Page<User> findByUsernameNot(String username, Pageable page);
 
 }
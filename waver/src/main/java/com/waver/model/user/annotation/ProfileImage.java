@@ -1,6 +1,6 @@
 package com.waver.model.user.annotation;
 
-import com.waver.model.user.annotation.validators.ProfileImageValidator;
+import com.waver.model.user.annotation.validators.StagedProfileImageValidator;
 
 import javax.validation.Constraint;
 import javax.validation.Payload;
@@ -9,8 +9,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Constraint(validatedBy = ProfileImageValidator.class)
-@Target(ElementType.FIELD)
+@Constraint(validatedBy = StagedProfileImageValidator.class)
+@Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ProfileImage {
     String message() default "{waver.constraints.image.ProfileImage.message}";
@@ -0,0 +1,39 @@
+package com.waver.model.user.annotation.validators;
+
+import com.waver.model.user.annotation.ProfileImage;
+import com.waver.model.user.viewmodel.UserUpdateViewModel;
+import com.waver.services.ContentTypeDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.io.IOException;
+
+// Checks an image that was streamed into a staging file, reporting it under the "image" property clients sent.
+public class StagedProfileImageValidator implements ConstraintValidator<ProfileImage, UserUpdateViewModel> {
+
+    @Autowired
+    ContentTypeDetector contentTypeDetector;
+
+    @Override
+    public boolean isValid(UserUpdateViewModel value, ConstraintValidatorContext constraintValidatorContext) {
+        if (value == null || value.getStagedImage() == null || isImage(value)){
+            return true;
+        }
+        constraintValidatorContext.disableDefaultConstraintViolation();
+        constraintValidatorContext
+                .buildConstraintViolationWithTemplate(constraintValidatorContext.getDefaultConstraintMessageTemplate())
+                .addPropertyNode("image")
+                .addConstraintViolation();
+        return false;
+    }
+
+    private boolean isImage(UserUpdateViewModel value) {
+        try {
+            String fileType = contentTypeDetector.detect(value.getStagedImage());
+            return fileType.equalsIgnoreCase("image/png") || fileType.equalsIgnoreCase("image/jpeg");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
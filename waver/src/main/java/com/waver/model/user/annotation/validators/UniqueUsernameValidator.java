@@ -1,8 +1,7 @@
 package com.waver.model.user.annotation.validators;
 
-import com.waver.model.user.User;
-import com.waver.model.user.UserRepository;
 import com.waver.model.user.annotation.UniqueUsername;
+import com.waver.services.UsernameFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.validation.ConstraintValidator;
@@ -11,14 +10,13 @@ import javax.validation.ConstraintValidatorContext;
 public class UniqueUsernameValidator implements ConstraintValidator <UniqueUsername, String> {
 
     @Autowired
-    UserRepository userRepository;
+    UsernameFilter usernameFilter;
 
     @Override
     public boolean isValid(String value, ConstraintValidatorContext constraintValidatorContext) {
-        User userFromDb = userRepository.findByUsername(value);
-        if (userFromDb == null){
+        if (value == null){
             return true;
         }
-        return false;
+        return !usernameFilter.isTaken(value);
     }
 }
@@ -0,0 +1,25 @@
+package com.waver.model.user.viewmodel;
+
+import com.waver.model.user.User;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class LoginViewModel extends UserViewModel {
+
+    private String accessToken;
+
+    private String refreshToken;
+
+    private long expiresIn;
+
+    public LoginViewModel(User user, String accessToken, String refreshToken, long expiresIn){
+        super(user);
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+}
@@ -0,0 +1,12 @@
+package com.waver.model.user.viewmodel;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class RefreshTokenViewModel {
+
+    @NotNull
+    private String refreshToken;
+}
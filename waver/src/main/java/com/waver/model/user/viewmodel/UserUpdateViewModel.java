@@ -1,19 +1,30 @@
 package com.waver.model.user.viewmodel;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.waver.model.user.annotation.ProfileImage;
+import com.waver.shared.StagedImageDeserializer;
 import lombok.Data;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.nio.file.Path;
 
 @Data
+@ProfileImage
 public class UserUpdateViewModel {
 
     @NotNull
     @Size(min = 4, max = 255)
     private String displayName;
 
-    @ProfileImage
+    // Only written when clients serialize an update; the server reads "image" into stagedImage.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String image;
+
+    // Incoming images are decoded into a staging file while the request body is parsed.
+    @JsonProperty(value = "image", access = JsonProperty.Access.WRITE_ONLY)
+    @JsonDeserialize(using = StagedImageDeserializer.class)
+    private Path stagedImage;
 }
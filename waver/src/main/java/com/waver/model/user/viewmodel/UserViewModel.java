@@ -1,9 +1,12 @@
 package com.waver.model.user.viewmodel;
 
 import com.waver.model.user.User;
+import com.waver.shared.ImageVariants;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 public class UserViewModel {
@@ -12,11 +15,13 @@ public class UserViewModel {
     private String username;
     private String displayName;
     private String image;
+    private Map<Integer, String> imageVariants;
 
     public UserViewModel(User user){
         this.setId(user.getId());
         this.setUsername(user.getUsername());
         this.setDisplayName(user.getDisplayName());
         this.setImage(user.getImage());
+        this.setImageVariants(ImageVariants.toMap(user.getImage(), user.getImageVariants()));
     }
 }
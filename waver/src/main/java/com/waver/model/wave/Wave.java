@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.waver.model.file.FileAttachment;
 import com.waver.model.user.User;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.sql.RowSet;
@@ -15,8 +17,14 @@ import java.util.Date;
 @Entity
 public class Wave {
 
+    // Ids are reserved 50 at a time, so batched inserts do not need a sequence round trip per wave.
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "wave_sequence")
+    @GenericGenerator(name = "wave_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "wave_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private long id;
 
     @NotNull
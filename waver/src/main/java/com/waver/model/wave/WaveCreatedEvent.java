@@ -0,0 +1,22 @@
+package com.waver.model.wave;
+
+import lombok.Data;
+
+@Data
+public class WaveCreatedEvent {
+
+    private long waveId;
+
+    private long userId;
+
+    private String username;
+
+    private String content;
+
+    public WaveCreatedEvent(Wave wave){
+        this.waveId = wave.getId();
+        this.userId = wave.getUser().getId();
+        this.username = wave.getUser().getUsername();
+        this.content = wave.getContent();
+    }
+}
@@ -0,0 +1,19 @@
+package com.waver.model.wave;
+
+import lombok.Data;
+
+@Data
+public class WaveDeletedEvent {
+
+    private long waveId;
+
+    private long userId;
+
+    private String username;
+
+    public WaveDeletedEvent(Wave wave){
+        this.waveId = wave.getId();
+        this.userId = wave.getUser().getId();
+        this.username = wave.getUser().getUsername();
+    }
+}
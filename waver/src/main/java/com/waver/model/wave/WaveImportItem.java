@@ -0,0 +1,17 @@
+package com.waver.model.wave;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+@Data
+public class WaveImportItem {
+
+    @NotNull
+    @Size(min = 10, max = 5000)
+    private String content;
+
+    // Original posting time in epoch millis, defaults to the import time.
+    private Long date;
+}
@@ -0,0 +1,30 @@
+package com.waver.model.wave;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class WaveImportResult {
+
+    private int imported;
+
+    // Number of skipped items; errors only holds the first few of them.
+    private int failed;
+
+    private List<ItemError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemError {
+
+        private int index;
+
+        private Map<String, String> validationErrors;
+    }
+}
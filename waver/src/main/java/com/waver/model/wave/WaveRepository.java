@@ -3,14 +3,54 @@ package com.waver.model.wave;
 import com.waver.model.user.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 
 public interface WaveRepository extends JpaRepository<Wave, Long>, JpaSpecificationExecutor<Wave> {
 
+    @Override
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    Page<Wave> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    Page<Wave> findAll(Specification<Wave> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    List<Wave> findAll(Specification<Wave> spec, Sort sort);
+
+    @EntityGraph(attributePaths = {"user", "attachment"})
     Page<Wave> findByUser(User user, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    Slice<Wave> findByIdLessThan(long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    Slice<Wave> findByIdLessThanAndUser(long id, User user, Pageable pageable);
+
+    @Query("select w.id, w.user.username from Wave w where w.id > :id order by w.id")
+    List<Object[]> findIdsWithUsernameAfter(@Param("id") long id, Pageable pageable);
+
+    @Query("select w.id, w.user.username, w.content from Wave w where w.id > :id order by w.id")
+    List<Object[]> findContentsAfter(@Param("id") long id, Pageable pageable);
+
+    @Query("select w.id, w.user.username, w.content from Wave w where w.id in :ids")
+    List<Object[]> findContentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select w.id from Wave w where w.user.id in :userIds and w.id < :id order by w.id desc")
+    List<Long> findIdsByUserIdInAndIdLessThan(@Param("userIds") Collection<Long> userIds, @Param("id") long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "attachment"})
+    List<Wave> findByIdIn(Collection<Long> ids);
 }
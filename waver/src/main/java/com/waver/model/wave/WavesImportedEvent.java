@@ -0,0 +1,22 @@
+package com.waver.model.wave;
+
+import com.waver.model.user.User;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class WavesImportedEvent {
+
+    private List<Long> waveIds;
+
+    private long userId;
+
+    private String username;
+
+    public WavesImportedEvent(User user, List<Long> waveIds){
+        this.waveIds = waveIds;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+    }
+}
@@ -0,0 +1,194 @@
+package com.waver.services;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.lock.SchedulerLockRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@EnableScheduling
+public class AttachmentCleanupJob {
+
+    public static final String LOCK_NAME = "attachment-cleanup";
+
+    private static final long ORPHAN_AGE_MILLIS = 60 * 60 * 1000;
+
+    FileAttachmentRepository fileAttachmentRepository;
+
+    SchedulerLockRepository schedulerLockRepository;
+
+    FileService fileService;
+
+    AppConfiguration appConfiguration;
+
+    ExecutorService deleteExecutor;
+
+    private final String owner;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong scannedCount = new AtomicLong();
+
+    private final AtomicLong deletedRowCount = new AtomicLong();
+
+    private final AtomicLong deletedFileCount = new AtomicLong();
+
+    private final AtomicLong failedFileCount = new AtomicLong();
+
+    private final AtomicLong lastRunDurationMillis = new AtomicLong();
+
+    public AttachmentCleanupJob(
+            FileAttachmentRepository fileAttachmentRepository,
+            SchedulerLockRepository schedulerLockRepository,
+            FileService fileService,
+            AppConfiguration appConfiguration) {
+        this.fileAttachmentRepository = fileAttachmentRepository;
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.fileService = fileService;
+        this.appConfiguration = appConfiguration;
+        this.owner = hostName() + "-" + UUID.randomUUID();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deleteExecutor = Executors.newFixedThreadPool(appConfiguration.getCleanupDeleteThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "attachment-cleanup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedRate = 60 * 60 * 1000)
+    public void cleanupStorage() {
+        if (!running.compareAndSet(false, true)){
+            return;
+        }
+        if (!renewLock()){
+            running.set(false);
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            Date cutoff = new Date(startedAt - ORPHAN_AGE_MILLIS);
+            int batchSize = appConfiguration.getCleanupBatchSize();
+            long lastId = 0;
+            List<Object[]> batch;
+            do {
+                batch = fileAttachmentRepository.findOrphanIdsAndNamesAfter(cutoff, lastId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()){
+                    break;
+                }
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+                deleteBatch(batch);
+            } while (batch.size() == batchSize && renewLock());
+        } finally {
+            lastRunDurationMillis.set(System.currentTimeMillis() - startedAt);
+            running.set(false);
+            schedulerLockRepository.release(LOCK_NAME, owner, new Date());
+        }
+    }
+
+    private void deleteBatch(List<Object[]> batch) {
+        scannedCount.addAndGet(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Object[] row : batch){
+            ids.add((Long) row[0]);
+        }
+        int deletedRows = fileAttachmentRepository.deleteOrphansByIdIn(ids);
+        deletedRowCount.addAndGet(deletedRows);
+        Set<Long> linkedMeanwhile = deletedRows < ids.size()
+                ? new HashSet<>(fileAttachmentRepository.findIdsByIdIn(ids))
+                : new HashSet<>();
+
+        List<Callable<Void>> deletions = new ArrayList<>(batch.size());
+        for (Object[] row : batch){
+            if (linkedMeanwhile.contains((Long) row[0])){
+                continue;
+            }
+            String name = (String) row[1];
+            deletions.add(() -> {
+                fileService.deleteAttachmentImage(name);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> deletion : deleteExecutor.invokeAll(deletions)){
+                try {
+                    deletion.get();
+                    deletedFileCount.incrementAndGet();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    failedFileCount.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean renewLock() {
+        Date now = new Date();
+        Date until = new Date(now.getTime() + appConfiguration.getCleanupLockLeaseSeconds() * 1000);
+        return schedulerLockRepository.acquire(LOCK_NAME, owner, now, until) == 1;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public long getScannedCount() {
+        return scannedCount.get();
+    }
+
+    public long getDeletedRowCount() {
+        return deletedRowCount.get();
+    }
+
+    public long getDeletedFileCount() {
+        return deletedFileCount.get();
+    }
+
+    public long getFailedFileCount() {
+        return failedFileCount.get();
+    }
+
+    // Orphans old enough to be deleted by the next run.
+    public long getBacklog() {
+        return fileAttachmentRepository.countOrphansBefore(new Date(System.currentTimeMillis() - ORPHAN_AGE_MILLIS));
+    }
+
+    public long getLastRunDurationMillis() {
+        return lastRunDurationMillis.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deleteExecutor.shutdown();
+    }
+}
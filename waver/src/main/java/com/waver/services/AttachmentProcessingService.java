@@ -0,0 +1,133 @@
+package com.waver.services;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.exception.UploadQueueFullException;
+import com.waver.model.file.AttachmentStatusChangedEvent;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.model.user.User;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class AttachmentProcessingService {
+
+    FileService fileService;
+
+    FileAttachmentRepository fileAttachmentRepository;
+
+    AppConfiguration appConfiguration;
+
+    ApplicationEventPublisher eventPublisher;
+
+    ThreadPoolExecutor executor;
+
+    Map<Long, CompletableFuture<FileAttachmentStatus>> inProgress = new ConcurrentHashMap<>();
+
+    public AttachmentProcessingService(
+            FileService fileService,
+            FileAttachmentRepository fileAttachmentRepository,
+            AppConfiguration appConfiguration,
+            ApplicationEventPublisher eventPublisher) {
+        this.fileService = fileService;
+        this.fileAttachmentRepository = fileAttachmentRepository;
+        this.appConfiguration = appConfiguration;
+        this.eventPublisher = eventPublisher;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                appConfiguration.getAttachmentWorkerThreads(),
+                appConfiguration.getAttachmentWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(appConfiguration.getAttachmentQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "attachment-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public FileAttachment saveAttachmentAsync(MultipartFile file, User owner) throws IOException {
+        FileAttachment pending = fileService.savePendingAttachment(file, owner);
+        CompletableFuture<FileAttachmentStatus> completion = new CompletableFuture<>();
+        inProgress.put(pending.getId(), completion);
+        try {
+            executor.execute(() -> {
+                try {
+                    completion.complete(process(pending));
+                } catch (RuntimeException e) {
+                    completion.completeExceptionally(e);
+                } finally {
+                    inProgress.remove(pending.getId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(pending.getId());
+            fileService.deleteAttachmentImage(pending.getName());
+            fileAttachmentRepository.deleteById(pending.getId());
+            throw new UploadQueueFullException("Upload queue is full, try again later");
+        }
+        return pending;
+    }
+
+    // Status of the attachment once its processing finished, PENDING if it did not finish in time,
+    // or null when there is no such attachment.
+    public FileAttachmentStatus awaitCompletion(long attachmentId) {
+        CompletableFuture<FileAttachmentStatus> completion = inProgress.get(attachmentId);
+        if (completion == null){
+            return fileAttachmentRepository.findById(attachmentId).map(FileAttachment::getStatus).orElse(null);
+        }
+        try {
+            return completion.get(appConfiguration.getAttachmentAwaitTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FileAttachmentStatus.PENDING;
+        } catch (ExecutionException e) {
+            return FileAttachmentStatus.FAILED;
+        } catch (TimeoutException e) {
+            return FileAttachmentStatus.PENDING;
+        }
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private FileAttachmentStatus process(FileAttachment pending) {
+        FileAttachment processed = pending;
+        FileAttachmentStatus status = FileAttachmentStatus.READY;
+        try {
+            processed = fileService.completePendingAttachment(pending.getName());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            status = FileAttachmentStatus.FAILED;
+        }
+        fileAttachmentRepository.updateProcessingResult(
+                pending.getId(), processed.getName(), processed.getFileType(), processed.getVariants(), status);
+        // Waves only take READY attachments, but a wave linked meanwhile must not keep serving the old status.
+        for (Object[] linked : fileAttachmentRepository.findWaveIdAndUsernameById(pending.getId())){
+            eventPublisher.publishEvent(new AttachmentStatusChangedEvent(pending.getId(), (Long) linked[0], (String) linked[1], status));
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
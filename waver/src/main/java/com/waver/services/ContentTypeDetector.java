@@ -0,0 +1,81 @@
+package com.waver.services;
+
+import org.apache.tika.Tika;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Detects content types from a bounded prefix. The image types we accept are recognized by their
+// magic bytes directly; anything else falls back to Tika on the same prefix.
+@Service
+public class ContentTypeDetector {
+
+    public static final int PREFIX_SIZE = 8 * 1024;
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final byte[] JPEG = {(byte) 0xff, (byte) 0xd8, (byte) 0xff};
+
+    private static final byte[] GIF87A = {'G', 'I', 'F', '8', '7', 'a'};
+
+    private static final byte[] GIF89A = {'G', 'I', 'F', '8', '9', 'a'};
+
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
+
+    private final Tika tika = new Tika();
+
+    public String detect(byte[] bytes) {
+        return detect(bytes, Math.min(bytes.length, PREFIX_SIZE));
+    }
+
+    public String detect(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return detect(inputStream);
+        }
+    }
+
+    // Reads at most PREFIX_SIZE bytes; the stream is left positioned after them.
+    public String detect(InputStream inputStream) throws IOException {
+        byte[] prefix = new byte[PREFIX_SIZE];
+        int length = 0;
+        int read;
+        while (length < prefix.length && (read = inputStream.read(prefix, length, prefix.length - length)) != -1){
+            length += read;
+        }
+        return detect(prefix, length);
+    }
+
+    private String detect(byte[] prefix, int length) {
+        if (startsWith(prefix, length, PNG)){
+            return "image/png";
+        }
+        if (startsWith(prefix, length, JPEG)){
+            return "image/jpeg";
+        }
+        if (startsWith(prefix, length, GIF87A) || startsWith(prefix, length, GIF89A)){
+            return "image/gif";
+        }
+        if (startsWith(prefix, length, RIFF) && length >= 12 && Arrays.equals(Arrays.copyOfRange(prefix, 8, 12), WEBP)){
+            return "image/webp";
+        }
+        return tika.detect(length == prefix.length ? prefix : Arrays.copyOf(prefix, length));
+    }
+
+    private static boolean startsWith(byte[] prefix, int length, byte[] magic) {
+        if (length < magic.length){
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++){
+            if (prefix[i] != magic[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,96 +1,426 @@
 package com.waver.services;
 
 import com.waver.configuration.AppConfiguration;
+import com.waver.exception.AttachmentTooLargeException;
 import com.waver.model.file.FileAttachment;
 import com.waver.model.file.FileAttachmentRepository;
-import org.apache.commons.io.FileUtils;
-import org.apache.tika.Tika;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.model.file.StoredBlob;
+import com.waver.model.file.StoredBlobRepository;
+import com.waver.model.user.User;
+import com.waver.shared.ImageVariants;
+import com.waver.storage.StorageBackend;
+import com.waver.storage.StoredObjectMetadataCache;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Base64;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-@EnableScheduling
 public class FileService {
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int BLOB_LOCK_STRIPES = 64;
+
     AppConfiguration appConfiguration;
 
-    Tika tika;
+    ContentTypeDetector contentTypeDetector;
 
     FileAttachmentRepository fileAttachmentRepository;
 
-    public FileService(AppConfiguration appConfiguration, FileAttachmentRepository attachmentRepository) {
+    StoredBlobRepository storedBlobRepository;
+
+    StorageBackend storageBackend;
+
+    StoredObjectMetadataCache metadataCache;
+
+    private final Object[] blobLocks = new Object[BLOB_LOCK_STRIPES];
+
+    private final AtomicLong uploadBytesInFlight = new AtomicLong();
+
+    public FileService(
+            AppConfiguration appConfiguration,
+            FileAttachmentRepository attachmentRepository,
+            StoredBlobRepository storedBlobRepository,
+            StorageBackend storageBackend,
+            ContentTypeDetector contentTypeDetector,
+            StoredObjectMetadataCache metadataCache) {
 
         this.appConfiguration = appConfiguration;
         this.fileAttachmentRepository = attachmentRepository;
-        tika = new Tika();
+        this.storedBlobRepository = storedBlobRepository;
+        this.storageBackend = storageBackend;
+        this.contentTypeDetector = contentTypeDetector;
+        this.metadataCache = metadataCache;
+        for (int i = 0; i < blobLocks.length; i++){
+            blobLocks[i] = new Object();
+        }
     }
 
     public String detectType(byte[] fileArr) {
-        return tika.detect(fileArr);
+        return contentTypeDetector.detect(fileArr);
     }
 
-    public String saveProfileImage(String base64Image) throws IOException {
-        String imageName = getRandomName();
-        byte[] decodedBytes = Base64.getDecoder().decode(base64Image);
-        File target = new File(appConfiguration.getFullProfileImagesPath() + "/" + imageName);
-        FileUtils.writeByteArrayToFile(target, decodedBytes);
+    public String detectType(Path file) throws IOException {
+        return contentTypeDetector.detect(file);
+    }
+
+    // Stores an image that was already decoded into the staging folder, moving it out of there.
+    public String saveProfileImage(Path staged) throws IOException {
+        String imageName = appConfiguration.isContentAddressedStorage() ? toHex(digest(staged)) : getRandomName();
+        String key = getProfileImageKey(imageName);
+        createImageVariants(staged, key);
+        commit(staged, key);
         return imageName;
     }
 
+    public Path createStagingFile() throws IOException {
+        return getStagingPath(getRandomName());
+    }
+
+    public String getProfileImageVariants(String image) throws IOException {
+        List<String> storedSizes = new ArrayList<>();
+        for (int size : appConfiguration.getImageVariantSizes()){
+            if (storageBackend.exists(ImageVariants.variantName(getProfileImageKey(image), size))){
+                storedSizes.add(String.valueOf(size));
+            }
+        }
+        return storedSizes.isEmpty() ? null : String.join(",", storedSizes);
+    }
+
     public void deleteProfileImage(String image) {
-        try {
-            Files.deleteIfExists(Paths.get(appConfiguration.getFullProfileImagesPath() + "/" + image));
+        if (image == null){
+            return;
+        }
+        release(getProfileImageKey(image));
+    }
+
+    public String createImageVariants(Path staged, String key) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(staged.toFile())) {
+            if (input == null){
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()){
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input);
+                return createImageVariants(reader, key);
+            } finally {
+                reader.dispose();
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    private String createImageVariants(ImageReader reader, String key) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if ((long) width * height > appConfiguration.getMaxVariantSourcePixels()){
+            return null;
+        }
+        int longestSide = Math.max(width, height);
+        List<String> storedSizes = new ArrayList<>();
+        List<Integer> missingSizes = new ArrayList<>();
+        for (int size : appConfiguration.getImageVariantSizes()){
+            if (size >= longestSide){
+                continue;
+            }
+            storedSizes.add(String.valueOf(size));
+            if (!storageBackend.exists(ImageVariants.variantName(key, size))){
+                missingSizes.add(size);
+            }
+        }
+        if (!missingSizes.isEmpty()){
+            BufferedImage source = readSubsampled(reader, longestSide, Collections.max(missingSizes));
+            int sourceLongestSide = Math.max(source.getWidth(), source.getHeight());
+            for (int size : missingSizes){
+                String variantKey = ImageVariants.variantName(key, size);
+                try {
+                    writeVariant(source, (double) size / sourceLongestSide, variantKey);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    storedSizes.remove(String.valueOf(size));
+                }
+            }
         }
+        return storedSizes.isEmpty() ? null : String.join(",", storedSizes);
     }
 
-    public FileAttachment saveAttachment(MultipartFile file) {
+    // Decodes only every n-th pixel, keeping at least twice the largest variant, so a large upload never
+    // has to fit in memory at full resolution just to produce a thumbnail.
+    private BufferedImage readSubsampled(ImageReader reader, int longestSide, int largestSize) throws IOException {
+        int subsampling = Math.max(1, longestSide / (2 * largestSize));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+    }
+
+    private void writeVariant(BufferedImage source, double scale, String variantKey) throws IOException {
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+        BufferedImage variant = resize(source, scale, hasAlpha);
+        Path staged = getStagingPath(getRandomName());
+        try {
+            ImageIO.write(variant, hasAlpha ? "png" : "jpg", staged.toFile());
+            storageBackend.store(variantKey, staged);
+            metadataCache.evict(variantKey);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, double scale, boolean hasAlpha) {
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage variant = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = variant.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return variant;
+    }
+
+    public FileAttachment saveAttachment(MultipartFile file, User owner) {
         FileAttachment fileAttachment = new FileAttachment();
         fileAttachment.setDate(new Date());
+        fileAttachment.setOwnerId(owner == null ? null : owner.getId());
         String randomName = getRandomName();
         fileAttachment.setName(randomName);
 
-        File target = new File(appConfiguration.getFullAttachmentsPath() + "/" + randomName);
-        try {
-            byte[] fileAsByte = file.getBytes();
-            FileUtils.writeByteArrayToFile(target, fileAsByte);
-            fileAttachment.setFileType(detectType(fileAsByte));
+        MessageDigest digest = appConfiguration.isContentAddressedStorage() ? newDigest() : null;
+        long size = file.getSize();
+        uploadBytesInFlight.addAndGet(size);
+        try (InputStream inputStream = file.getInputStream()) {
+            Path staged = getStagingPath(randomName);
+            byte[] prefix = streamToFile(inputStream, staged, appConfiguration.getMaxAttachmentSize(), digest);
+            if (digest != null){
+                fileAttachment.setName(toHex(digest.digest()));
+            }
+            fileAttachment.setFileType(detectType(prefix));
+            storeAttachment(staged, fileAttachment);
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            uploadBytesInFlight.addAndGet(-size);
         }
+        fileAttachment.setStatus(FileAttachmentStatus.READY);
         FileAttachment attachment = fileAttachmentRepository.save(fileAttachment);
         return attachment;
     }
 
-    private String getRandomName() {
-        return UUID.randomUUID().toString().replaceAll("-", "");
+    public FileAttachment savePendingAttachment(MultipartFile file, User owner) throws IOException {
+        if (file.getSize() > appConfiguration.getMaxAttachmentSize()){
+            throw new AttachmentTooLargeException("Attachment exceeds " + appConfiguration.getMaxAttachmentSize() + " bytes");
+        }
+        FileAttachment fileAttachment = new FileAttachment();
+        fileAttachment.setDate(new Date());
+        String randomName = getRandomName();
+        fileAttachment.setName(randomName);
+        fileAttachment.setStatus(FileAttachmentStatus.PENDING);
+        fileAttachment.setOwnerId(owner == null ? null : owner.getId());
+
+        uploadBytesInFlight.addAndGet(file.getSize());
+        try {
+            file.transferTo(getStagingPath(randomName).toAbsolutePath().toFile());
+        } finally {
+            uploadBytesInFlight.addAndGet(-file.getSize());
+        }
+        return fileAttachmentRepository.save(fileAttachment);
+    }
+
+    public long getUploadBytesInFlight() {
+        return uploadBytesInFlight.get();
+    }
+
+    public FileAttachment completePendingAttachment(String stagedName) throws IOException {
+        Path staged = getStagingPath(stagedName);
+        FileAttachment processed = new FileAttachment();
+        processed.setName(appConfiguration.isContentAddressedStorage() ? toHex(digest(staged)) : stagedName);
+        processed.setFileType(detectType(staged));
+        storeAttachment(staged, processed);
+        return processed;
+    }
+
+    private void storeAttachment(Path staged, FileAttachment fileAttachment) throws IOException {
+        String key = getAttachmentKey(fileAttachment.getName());
+        if (fileAttachment.getFileType().startsWith("image/")){
+            fileAttachment.setVariants(createImageVariants(staged, key));
+        }
+        commit(staged, key);
+    }
+
+    public String getAttachmentKey(String name) {
+        return appConfiguration.getAttachmentsFolder() + "/" + name;
+    }
+
+    public String getProfileImageKey(String name) {
+        return appConfiguration.getProfileImagesFolder() + "/" + name;
+    }
+
+    private Path getStagingPath(String name) throws IOException {
+        Path stagingFolder = Paths.get(appConfiguration.getFullStagingPath());
+        Files.createDirectories(stagingFolder);
+        return stagingFolder.resolve(name);
+    }
+
+    private void commit(Path staged, String key) throws IOException {
+        if (!appConfiguration.isContentAddressedStorage()){
+            storageBackend.store(key, staged);
+            evictMetadata(key);
+            return;
+        }
+        synchronized (blobLock(key)) {
+            int updated = storedBlobRepository.incrementRefCount(key);
+            if (updated > 0 && storageBackend.exists(key)){
+                Files.deleteIfExists(staged);
+                return;
+            }
+            storageBackend.store(key, staged);
+            evictMetadata(key);
+            if (updated == 0){
+                storedBlobRepository.save(new StoredBlob(key, 1));
+            }
+        }
+    }
+
+    private void release(String key) {
+        synchronized (blobLock(key)) {
+            boolean referenced = storedBlobRepository.decrementRefCount(key) > 0;
+            if (referenced && storedBlobRepository.deleteUnreferenced(key) == 0){
+                return;
+            }
+            try {
+                storageBackend.delete(key);
+                for (int size : appConfiguration.getImageVariantSizes()){
+                    storageBackend.delete(ImageVariants.variantName(key, size));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            evictMetadata(key);
+        }
+    }
+
+    // Images are served through the metadata cache, so a rewritten or deleted key must not linger there.
+    private void evictMetadata(String key) {
+        metadataCache.evict(key);
+        for (int size : appConfiguration.getImageVariantSizes()){
+            metadataCache.evict(ImageVariants.variantName(key, size));
+        }
+    }
+
+    private Object blobLock(String key) {
+        return blobLocks[(key.hashCode() & Integer.MAX_VALUE) % blobLocks.length];
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    @Scheduled(fixedRate = 60 * 60 * 1000)
-    public void cleanupStorage() {
-        Date oneHourAgo = new Date(System.currentTimeMillis() - (60*60*1000));
-        List<FileAttachment> oldFiles = fileAttachmentRepository.findByDateBeforeAndWaveIsNull(oneHourAgo);
-        for(FileAttachment fileAttachment : oldFiles){
-            deleteAttachmentImage(fileAttachment.getName());
-            fileAttachmentRepository.deleteById(fileAttachment.getId());
+    private byte[] digest(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1){
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
         }
+        return digest.digest();
+    }
+
+    private String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes){
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private byte[] streamToFile(InputStream inputStream, Path target, long maxSize, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        byte[] prefix = new byte[ContentTypeDetector.PREFIX_SIZE];
+        int prefixLength = 0;
+        long totalBytes = 0;
+        try (ReadableByteChannel source = Channels.newChannel(inputStream);
+             FileChannel destination = FileChannel.open(target,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = source.read(buffer)) != -1){
+                totalBytes += read;
+                if (totalBytes > maxSize){
+                    throw new AttachmentTooLargeException("Attachment exceeds " + maxSize + " bytes");
+                }
+                buffer.flip();
+                if (digest != null){
+                    digest.update(buffer.duplicate());
+                }
+                if (prefixLength < ContentTypeDetector.PREFIX_SIZE){
+                    int prefixBytes = Math.min(ContentTypeDetector.PREFIX_SIZE - prefixLength, buffer.remaining());
+                    buffer.duplicate().get(prefix, prefixLength, prefixBytes);
+                    prefixLength += prefixBytes;
+                }
+                while (buffer.hasRemaining()){
+                    destination.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (AttachmentTooLargeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return Arrays.copyOf(prefix, prefixLength);
+    }
+
+    private String getRandomName() {
+        return UUID.randomUUID().toString().replaceAll("-", "");
     }
 
     public void deleteAttachmentImage(String name) {
+        release(getAttachmentKey(name));
         try {
-            Files.deleteIfExists(Paths.get(appConfiguration.getFullAttachmentsPath() + "/" + name));
+            Files.deleteIfExists(getStagingPath(name));
         } catch (IOException e) {
             e.printStackTrace();
         }
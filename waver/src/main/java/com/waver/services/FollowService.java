@@ -0,0 +1,127 @@
+package com.waver.services;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.exception.SelfFollowException;
+import com.waver.model.follow.Follow;
+import com.waver.model.follow.FollowChangedEvent;
+import com.waver.model.follow.FollowRepository;
+import com.waver.model.user.User;
+import lombok.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class FollowService {
+
+    FollowRepository followRepository;
+
+    UserService userService;
+
+    AppConfiguration appConfiguration;
+
+    ApplicationEventPublisher eventPublisher;
+
+    // Counted from the follow table and kept current by this node's follows; the TTL picks up other nodes' changes.
+    private final Map<Long, CachedCount> followerCounts;
+
+    public FollowService(
+            FollowRepository followRepository,
+            UserService userService,
+            AppConfiguration appConfiguration,
+            ApplicationEventPublisher eventPublisher) {
+        this.followRepository = followRepository;
+        this.userService = userService;
+        this.appConfiguration = appConfiguration;
+        this.eventPublisher = eventPublisher;
+        int maxSize = appConfiguration.getFollowerCountCacheMaxSize();
+        this.followerCounts = new LinkedHashMap<Long, CachedCount>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedCount> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public void follow(User follower, String username) {
+        User followee = userService.getByUsername(username);
+        if (followee.getId() == follower.getId()){
+            throw new SelfFollowException("Users cannot follow themselves");
+        }
+        if (followRepository.existsByFollowerIdAndFolloweeId(follower.getId(), followee.getId())){
+            return;
+        }
+        AtomicLong followerCount = followerCount(followee.getId());
+        Follow follow = new Follow();
+        follow.setFollower(follower);
+        follow.setFollowee(followee);
+        follow.setTimestamp(new Date());
+        try {
+            followRepository.save(follow);
+        } catch (DataIntegrityViolationException e) {
+            return;
+        }
+        eventPublisher.publishEvent(new FollowChangedEvent(follower.getId(), followee.getId(), true, followerCount.incrementAndGet()));
+    }
+
+    public void unfollow(User follower, String username) {
+        User followee = userService.getByUsername(username);
+        AtomicLong followerCount = followerCount(followee.getId());
+        if (followRepository.deleteByFollowerIdAndFolloweeId(follower.getId(), followee.getId()) == 0){
+            return;
+        }
+        eventPublisher.publishEvent(new FollowChangedEvent(follower.getId(), followee.getId(), false, followerCount.decrementAndGet()));
+    }
+
+    public Page<User> getFollowers(String username, Pageable pageable) {
+        return followRepository.findFollowers(userService.getByUsername(username), pageable);
+    }
+
+    public Page<User> getFollowing(String username, Pageable pageable) {
+        return followRepository.findFollowing(userService.getByUsername(username), pageable);
+    }
+
+    public long getFollowerCount(long userId) {
+        return followerCount(userId).get();
+    }
+
+    // Accounts at or above the limit are not fanned out on write; their waves are pulled when a timeline is read.
+    public boolean isFanOutExempt(long userId) {
+        return getFollowerCount(userId) >= appConfiguration.getTimelineFanOutFollowerLimit();
+    }
+
+    private AtomicLong followerCount(long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (followerCounts){
+            CachedCount cached = followerCounts.get(userId);
+            if (cached != null && cached.getExpiresAt() >= now){
+                return cached.getCount();
+            }
+        }
+        AtomicLong count = new AtomicLong(followRepository.countByFolloweeId(userId));
+        synchronized (followerCounts){
+            // Another caller may have loaded it meanwhile; keep a single counter so no update is lost.
+            CachedCount cached = followerCounts.get(userId);
+            if (cached != null && cached.getExpiresAt() >= now){
+                return cached.getCount();
+            }
+            followerCounts.put(userId, new CachedCount(count, now + appConfiguration.getFollowerCountCacheTtlSeconds() * 1000));
+        }
+        return count;
+    }
+
+    @Value
+    static class CachedCount {
+
+        AtomicLong count;
+
+        long expiresAt;
+    }
+}
@@ -0,0 +1,407 @@
+package com.waver.services;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.follow.FollowChangedEvent;
+import com.waver.model.follow.FollowRepository;
+import com.waver.model.user.User;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveRepository;
+import com.waver.model.wave.WavesImportedEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Timelines are buffered in this process and fanned out from this node's wave events only, so the service assumes a
+// single application node. With several nodes behind the shared storage and cleanup job, a node would miss the waves
+// posted through the others until its buffers are evicted and reloaded; run the timeline on one node or move it to a shared store.
+// Followers' buffers are updated from a bounded fan-out queue after the commit, so they can trail a new wave by a moment.
+@Service
+public class HomeTimelineService {
+
+    WaveRepository waveRepository;
+
+    FollowRepository followRepository;
+
+    FollowService followService;
+
+    AppConfiguration appConfiguration;
+
+    private final Map<Long, HomeTimeline> timelines;
+
+    private final AtomicLong fanOutWriteCount = new AtomicLong();
+
+    private final AtomicLong timelineLoadCount = new AtomicLong();
+
+    private final AtomicInteger pendingFanOutCount = new AtomicInteger();
+
+    // One thread, so pushes and removals reach the buffers in the order the waves were committed.
+    private final ThreadPoolExecutor fanOutExecutor;
+
+    public HomeTimelineService(
+            WaveRepository waveRepository,
+            FollowRepository followRepository,
+            FollowService followService,
+            AppConfiguration appConfiguration) {
+        this.waveRepository = waveRepository;
+        this.followRepository = followRepository;
+        this.followService = followService;
+        this.appConfiguration = appConfiguration;
+        int maxSize = appConfiguration.getHomeTimelineCacheMaxSize();
+        this.timelines = new LinkedHashMap<Long, HomeTimeline>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, HomeTimeline> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.fanOutExecutor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(appConfiguration.getTimelineFanOutQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "timeline-fan-out");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Slice<Wave> getHomeTimeline(User user, long before, int size) {
+        HomeTimeline timeline = getTimeline(user.getId());
+        List<Long> ids = timeline.idsBefore(before, size + 1);
+        if (ids.size() <= size && timeline.isTruncated()){
+            // Past the tail of a full buffer, so read straight from the waves table.
+            Set<Long> sources = new HashSet<>(timeline.getFolloweeIds());
+            sources.add(user.getId());
+            ids = waveRepository.findIdsByUserIdInAndIdLessThan(sources, before, PageRequest.of(0, size + 1));
+        } else {
+            List<Long> exemptFollowees = timeline.getFolloweeIds().stream()
+                    .filter(followService::isFanOutExempt)
+                    .collect(Collectors.toList());
+            if (!exemptFollowees.isEmpty()){
+                TreeSet<Long> merged = new TreeSet<>(Comparator.reverseOrder());
+                merged.addAll(ids);
+                merged.addAll(waveRepository.findIdsByUserIdInAndIdLessThan(exemptFollowees, before, PageRequest.of(0, size + 1)));
+                ids = merged.stream().limit(size + 1).collect(Collectors.toList());
+            }
+        }
+
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        List<Wave> waves = pageIds.isEmpty() ? new ArrayList<>() : waveRepository.findByIdIn(pageIds);
+        waves.sort(Comparator.comparingLong(Wave::getId).reversed());
+        return new SliceImpl<>(waves, PageRequest.of(0, size), hasNext);
+    }
+
+    // The author's own buffer is updated right away; followers are reached from the fan-out thread.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveCreated(WaveCreatedEvent event) {
+        List<Long> waveIds = Collections.singletonList(event.getWaveId());
+        push(event.getUserId(), event.getUserId(), waveIds);
+        if (!followService.isFanOutExempt(event.getUserId())){
+            fanOut(() -> pushToFollowers(event.getUserId(), waveIds));
+        }
+    }
+
+    // Same fan-out as onWaveCreated, with one follower lookup and one push per follower for the whole import.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWavesImported(WavesImportedEvent event) {
+        push(event.getUserId(), event.getUserId(), event.getWaveIds());
+        if (!followService.isFanOutExempt(event.getUserId())){
+            fanOut(() -> pushToFollowers(event.getUserId(), event.getWaveIds()));
+        }
+    }
+
+    // Queued behind the pushes, so a wave deleted right after it was posted is not put back afterwards.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveDeleted(WaveDeletedEvent event) {
+        HomeTimeline ownTimeline = cachedTimeline(event.getUserId());
+        if (ownTimeline != null){
+            ownTimeline.remove(event.getWaveId());
+        }
+        fanOut(() -> {
+            for (Long followerId : followRepository.findFollowerIds(event.getUserId())){
+                HomeTimeline timeline = cachedTimeline(followerId);
+                if (timeline != null){
+                    timeline.remove(event.getWaveId());
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        synchronized (timelines){
+            // Waves posted while the account was exempt were never pushed, so every buffer may miss them now.
+            if (!event.isFollowing() && event.getFollowerCount() == appConfiguration.getTimelineFanOutFollowerLimit() - 1){
+                timelines.clear();
+                return;
+            }
+            timelines.remove(event.getFollowerId());
+        }
+    }
+
+    public long getFanOutWriteCount() {
+        return fanOutWriteCount.get();
+    }
+
+    public long getTimelineLoadCount() {
+        return timelineLoadCount.get();
+    }
+
+    // Fan-outs and removals queued or running on the fan-out thread.
+    public int getPendingFanOutCount() {
+        return pendingFanOutCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+    }
+
+    private void fanOut(Runnable task) {
+        pendingFanOutCount.incrementAndGet();
+        try {
+            fanOutExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pendingFanOutCount.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingFanOutCount.decrementAndGet();
+            // Dropping the buffers is what keeps them right when a fan-out cannot be queued; they reload on next read.
+            synchronized (timelines){
+                timelines.clear();
+            }
+        }
+    }
+
+    private void pushToFollowers(long authorId, List<Long> waveIds) {
+        for (Long followerId : followRepository.findFollowerIds(authorId)){
+            push(followerId, authorId, waveIds);
+        }
+    }
+
+    private void push(long userId, long authorId, List<Long> waveIds) {
+        HomeTimeline timeline = cachedTimeline(userId);
+        // A buffer reloaded after an unfollow must not take waves queued while the follow still existed.
+        if (timeline != null && (userId == authorId || timeline.follows(authorId))){
+            timeline.addAll(waveIds);
+            fanOutWriteCount.addAndGet(waveIds.size());
+        }
+    }
+
+    private HomeTimeline cachedTimeline(long userId) {
+        synchronized (timelines){
+            return timelines.get(userId);
+        }
+    }
+
+    private HomeTimeline getTimeline(long userId) {
+        HomeTimeline timeline;
+        synchronized (timelines){
+            timeline = timelines.computeIfAbsent(userId, id -> new HomeTimeline(appConfiguration.getHomeTimelineCapacity()));
+        }
+        // Registered before loading so waves pushed meanwhile are not lost.
+        synchronized (timeline){
+            if (!timeline.isLoaded()){
+                Set<Long> followeeIds = new HashSet<>(followRepository.findFolloweeIds(userId));
+                Set<Long> pushedSources = followeeIds.stream()
+                        .filter(id -> !followService.isFanOutExempt(id))
+                        .collect(Collectors.toSet());
+                pushedSources.add(userId);
+                int capacity = appConfiguration.getHomeTimelineCapacity();
+                List<Long> ids = waveRepository.findIdsByUserIdInAndIdLessThan(pushedSources, Long.MAX_VALUE, PageRequest.of(0, capacity));
+                timeline.load(followeeIds, ids, ids.size() == capacity);
+                timelineLoadCount.incrementAndGet();
+            }
+        }
+        return timeline;
+    }
+
+    // Sorted ids in a ring of primitive longs, grown on demand up to the capacity, so a cached timeline costs
+    // eight bytes per wave instead of a boxed Long and a tree node.
+    static class HomeTimeline {
+
+        private static final int INITIAL_LENGTH = 16;
+
+        private static final long[] NO_IDS = new long[0];
+
+        private final int capacity;
+
+        private long[] ids = NO_IDS;
+
+        private int head;
+
+        private int size;
+
+        private long[] followeeIds = NO_IDS;
+
+        private boolean loaded;
+
+        private boolean truncated;
+
+        HomeTimeline(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void load(Collection<Long> followeeIds, List<Long> loadedIds, boolean truncated) {
+            this.followeeIds = followeeIds.stream().mapToLong(Long::longValue).sorted().toArray();
+            this.truncated = this.truncated || truncated;
+            this.loaded = true;
+            // Oldest first, so the ids pushed while loading, which are newer, only shift once.
+            long[] sorted = loadedIds.stream().mapToLong(Long::longValue).sorted().toArray();
+            for (long id : sorted){
+                insert(id);
+            }
+        }
+
+        synchronized void add(long id) {
+            insert(id);
+        }
+
+        synchronized void addAll(List<Long> added) {
+            for (Long id : added){
+                insert(id);
+            }
+        }
+
+        synchronized void remove(long id) {
+            int index = indexOf(id);
+            if (index < 0){
+                return;
+            }
+            for (int i = index; i < size - 1; i++){
+                set(i, get(i + 1));
+            }
+            size--;
+        }
+
+        synchronized List<Long> idsBefore(long before, int limit) {
+            List<Long> result = new ArrayList<>(limit);
+            int index = indexOf(before);
+            int from = (index >= 0 ? index : -index - 1) - 1;
+            for (int i = from; i >= 0 && result.size() < limit; i--){
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        // Not known before the first load, which reads the followees itself, so pushes are kept until then.
+        synchronized boolean follows(long userId) {
+            return !loaded || Arrays.binarySearch(followeeIds, userId) >= 0;
+        }
+
+        synchronized List<Long> getFolloweeIds() {
+            return Arrays.stream(followeeIds).boxed().collect(Collectors.toList());
+        }
+
+        private void insert(long id) {
+            if (size == 0 || get(size - 1) < id){
+                if (size == capacity){
+                    dropOldest();
+                }
+                ensureLength();
+                set(size++, id);
+                return;
+            }
+            int index = indexOf(id);
+            if (index >= 0){
+                return;
+            }
+            index = -index - 1;
+            if (size == capacity){
+                if (index == 0){
+                    // Older than everything in a full buffer, so it is only reachable through the database.
+                    truncated = true;
+                    return;
+                }
+                dropOldest();
+                index--;
+            }
+            ensureLength();
+            for (int i = size; i > index; i--){
+                set(i, get(i - 1));
+            }
+            set(index, id);
+            size++;
+        }
+
+        private void dropOldest() {
+            head = (head + 1) % ids.length;
+            size--;
+            truncated = true;
+        }
+
+        private void ensureLength() {
+            if (size < ids.length){
+                return;
+            }
+            long[] grown = new long[Math.min(capacity, Math.max(INITIAL_LENGTH, ids.length * 2))];
+            for (int i = 0; i < size; i++){
+                grown[i] = get(i);
+            }
+            ids = grown;
+            head = 0;
+        }
+
+        // Index of id, or -(insertion point) - 1 like Arrays.binarySearch.
+        private int indexOf(long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high){
+                int middle = (low + high) >>> 1;
+                long value = get(middle);
+                if (value < id){
+                    low = middle + 1;
+                } else if (value > id){
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private long get(int index) {
+            return ids[(head + index) % ids.length];
+        }
+
+        private void set(int index, long id) {
+            ids[(head + index) % ids.length] = id;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.waver.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.AttachmentStatusChangedEvent;
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WavesImportedEvent;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Service
+public class HotFeedCache {
+
+    private static final String GLOBAL_FEED = "";
+
+    ObjectMapper objectMapper;
+
+    AppConfiguration appConfiguration;
+
+    private final LinkedHashMap<FeedKey, CachedPage> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<FeedKey, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+
+    // Version of the last write per feed, kept only for feeds that were written to and are still cached.
+    // A feed without an entry reads as droppedVersion, which never falls below a version that was dropped.
+    private final Map<String, Long> feedVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    private final AtomicLong droppedVersion = new AtomicLong();
+
+    private long cachedBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public HotFeedCache(ObjectMapper objectMapper, AppConfiguration appConfiguration) {
+        this.objectMapper = objectMapper;
+        this.appConfiguration = appConfiguration;
+    }
+
+    public boolean isCacheable(Pageable pageable) {
+        return pageable.getPageNumber() == 0 && pageable.getPageSize() <= appConfiguration.getHotFeedCacheMaxPageSize();
+    }
+
+    // Returns the serialized first page of a feed, loading it once for all concurrent callers on a miss.
+    public byte[] get(String username, Pageable pageable, Supplier<?> loader) {
+        String feed = username == null ? GLOBAL_FEED : username;
+        FeedKey key = new FeedKey(feed, pageable.getPageSize(), pageable.getSort().toString());
+        long now = System.currentTimeMillis();
+        synchronized (pages){
+            CachedPage cached = pages.get(key);
+            if (cached != null && cached.getExpiresAt() >= now){
+                hitCount.incrementAndGet();
+                return cached.getBody();
+            }
+        }
+        missCount.incrementAndGet();
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null){
+            return join(inFlight);
+        }
+        try {
+            long version = feedVersion(feed);
+            long globalVersion = feedVersion(GLOBAL_FEED);
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            // Skip the put when a write hit this feed while the page was being loaded.
+            if (version == feedVersion(feed) && globalVersion == feedVersion(GLOBAL_FEED)){
+                put(key, new CachedPage(body, now + appConfiguration.getHotFeedCacheTtlSeconds() * 1000));
+            }
+            future.complete(body);
+            return body;
+        } catch (JsonProcessingException e) {
+            future.completeExceptionally(e);
+            throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveCreated(WaveCreatedEvent event) {
+        invalidate(event.getUsername());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWavesImported(WavesImportedEvent event) {
+        invalidate(event.getUsername());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveDeleted(WaveDeletedEvent event) {
+        invalidate(event.getUsername());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttachmentStatusChanged(AttachmentStatusChangedEvent event) {
+        invalidate(event.getUsername());
+    }
+
+    // Drops the global feed and the user's own feed; other users' feeds cannot contain their waves.
+    public void invalidate(String username) {
+        long version = lastVersion.incrementAndGet();
+        feedVersions.merge(GLOBAL_FEED, version, Math::max);
+        feedVersions.merge(username, version, Math::max);
+        if (feedVersions.size() > appConfiguration.getHotFeedCacheMaxSize()){
+            feedVersions.keySet().forEach(this::dropVersion);
+        }
+        synchronized (pages){
+            Iterator<Map.Entry<FeedKey, CachedPage>> iterator = pages.entrySet().iterator();
+            while (iterator.hasNext()){
+                Map.Entry<FeedKey, CachedPage> entry = iterator.next();
+                String feed = entry.getKey().getFeed();
+                if (feed.equals(GLOBAL_FEED) || feed.equals(username)){
+                    cachedBytes -= entry.getValue().getBody().length;
+                    iterator.remove();
+                }
+            }
+        }
+        loading.keySet().removeIf(key -> key.getFeed().equals(GLOBAL_FEED) || key.getFeed().equals(username));
+    }
+
+    public void invalidateAll() {
+        droppedVersion.accumulateAndGet(lastVersion.incrementAndGet(), Math::max);
+        feedVersions.keySet().forEach(this::dropVersion);
+        synchronized (pages){
+            pages.clear();
+            cachedBytes = 0;
+        }
+        loading.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int getVersionedFeedCount() {
+        return feedVersions.size();
+    }
+
+    public long getCachedBytes() {
+        synchronized (pages){
+            return cachedBytes;
+        }
+    }
+
+    private void put(FeedKey key, CachedPage page) {
+        synchronized (pages){
+            CachedPage previous = pages.put(key, page);
+            if (previous != null){
+                cachedBytes -= previous.getBody().length;
+            }
+            cachedBytes += page.getBody().length;
+            Iterator<Map.Entry<FeedKey, CachedPage>> eldest = pages.entrySet().iterator();
+            while (eldest.hasNext() && (pages.size() > appConfiguration.getHotFeedCacheMaxSize()
+                    || cachedBytes > appConfiguration.getHotFeedCacheMaxBytes())){
+                Map.Entry<FeedKey, CachedPage> evicted = eldest.next();
+                cachedBytes -= evicted.getValue().getBody().length;
+                eldest.remove();
+                if (!evicted.getKey().getFeed().equals(GLOBAL_FEED)){
+                    dropVersion(evicted.getKey().getFeed());
+                }
+            }
+        }
+    }
+
+    private long feedVersion(String feed) {
+        Long version = feedVersions.get(feed);
+        return version != null ? version : droppedVersion.get();
+    }
+
+    // Raises droppedVersion before removing the entry, so a load that started earlier still sees a change.
+    private void dropVersion(String feed) {
+        Long version = feedVersions.get(feed);
+        if (version != null){
+            droppedVersion.accumulateAndGet(version, Math::max);
+            feedVersions.remove(feed, version);
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Value
+    static class FeedKey {
+
+        String feed;
+
+        int size;
+
+        String sort;
+    }
+
+    @Value
+    static class CachedPage {
+
+        byte[] body;
+
+        long expiresAt;
+    }
+}
@@ -0,0 +1,130 @@
+package com.waver.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waver.configuration.AppConfiguration;
+import com.waver.configuration.TokenUserCache;
+import com.waver.model.user.User;
+import com.waver.model.user.UserRepository;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+public class TokenService {
+
+    public static final String ACCESS_TOKEN = "access";
+
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    AppConfiguration appConfiguration;
+
+    ObjectMapper objectMapper;
+
+    UserRepository userRepository;
+
+    TokenUserCache tokenUserCache;
+
+    private final byte[] secret;
+
+    public TokenService(AppConfiguration appConfiguration,
+                        ObjectMapper objectMapper,
+                        UserRepository userRepository,
+                        TokenUserCache tokenUserCache) {
+        this.appConfiguration = appConfiguration;
+        this.objectMapper = objectMapper;
+        this.userRepository = userRepository;
+        this.tokenUserCache = tokenUserCache;
+        if (appConfiguration.getTokenSecret() != null){
+            this.secret = appConfiguration.getTokenSecret().getBytes(StandardCharsets.UTF_8);
+        } else {
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        }
+    }
+
+    public String createAccessToken(User user) {
+        return createToken(user, ACCESS_TOKEN, appConfiguration.getAccessTokenTtlSeconds());
+    }
+
+    public String createRefreshToken(User user) {
+        return createToken(user, REFRESH_TOKEN, appConfiguration.getRefreshTokenTtlSeconds());
+    }
+
+    public User verify(String token, String expectedType) {
+        int separator = token.indexOf('.');
+        if (separator < 0){
+            return null;
+        }
+        String payload = token.substring(0, separator);
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)){
+            return null;
+        }
+        Map<String, Object> claims;
+        try {
+            claims = objectMapper.readValue(Base64.getUrlDecoder().decode(payload), CLAIMS_TYPE);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        long expiresAt = ((Number) claims.get("exp")).longValue();
+        if (!expectedType.equals(claims.get("typ")) || expiresAt < System.currentTimeMillis() / 1000){
+            return null;
+        }
+        // The token only names the user; the rest comes from the row so a profile update shows up at once.
+        return loadUser(((Number) claims.get("sub")).longValue());
+    }
+
+    private User loadUser(long id) {
+        User user = tokenUserCache.get(id);
+        if (user == null){
+            user = userRepository.findById(id).orElse(null);
+            if (user != null){
+                tokenUserCache.put(user);
+            }
+        }
+        return user;
+    }
+
+    private String createToken(User user, String type, long ttlSeconds) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("typ", type);
+        claims.put("sub", user.getId());
+        claims.put("exp", System.currentTimeMillis() / 1000 + ttlSeconds);
+        String payload;
+        try {
+            payload = Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
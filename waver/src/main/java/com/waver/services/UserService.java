@@ -1,9 +1,14 @@
 package com.waver.services;
 
+import com.waver.configuration.AuthenticationCache;
+import com.waver.configuration.TokenUserCache;
 import com.waver.exception.CustomNotFoundException;
+import com.waver.exception.InvalidProfileImageException;
+import com.waver.exception.UsernameTakenException;
 import com.waver.model.user.User;
 import com.waver.model.user.UserRepository;
 import com.waver.model.user.viewmodel.UserUpdateViewModel;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,16 +27,46 @@ public class UserService {
 
     FileService fileService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, FileService fileService) {
+    AuthenticationCache authenticationCache;
+
+    TokenUserCache tokenUserCache;
+
+    HotFeedCache hotFeedCache;
+
+    WaveJsonCache waveJsonCache;
+
+    public UserService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            FileService fileService,
+            AuthenticationCache authenticationCache,
+            TokenUserCache tokenUserCache,
+            HotFeedCache hotFeedCache,
+            WaveJsonCache waveJsonCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.fileService = fileService;
+        this.authenticationCache = authenticationCache;
+        this.tokenUserCache = tokenUserCache;
+        this.hotFeedCache = hotFeedCache;
+        this.waveJsonCache = waveJsonCache;
     }
 
     public User save(User user){
         String encodedPassword = passwordEncoder.encode(user.getPassword());
         user.setPassword(encodedPassword);
-        return userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // The username filter only knows the names saved through this node, so another node may have taken it.
+            if (userRepository.existsByUsername(user.getUsername())){
+                throw new UsernameTakenException("Username " + user.getUsername() + " is already in use");
+            }
+            throw e;
+        }
+        authenticationCache.evict(savedUser.getUsername());
+        return savedUser;
     }
 
     public Page<User> getUsers(User loggedInUser, Pageable page) {
@@ -52,16 +87,22 @@ public class UserService {
     public User update(long id, UserUpdateViewModel userUpdate) {
         User userInDB = userRepository.getOne(id);
         userInDB.setDisplayName(userUpdate.getDisplayName());
-        if (userUpdate.getImage() != null){
-            String savedImageName = null;
+        if (userUpdate.getStagedImage() != null){
             try {
-                savedImageName = fileService.saveProfileImage(userUpdate.getImage());
+                String savedImageName = fileService.saveProfileImage(userUpdate.getStagedImage());
                 fileService.deleteProfileImage(userInDB.getImage());
                 userInDB.setImage(savedImageName);
+                userInDB.setImageVariants(fileService.getProfileImageVariants(savedImageName));
             } catch (IOException e) {
-                e.printStackTrace();
+                // Fails the whole update, so the client learns the image was not stored.
+                throw new InvalidProfileImageException("Image could not be processed");
             }
         }
-        return userRepository.save(userInDB);
+        User updatedUser = userRepository.save(userInDB);
+        authenticationCache.evict(updatedUser.getUsername());
+        tokenUserCache.evict(updatedUser.getId());
+        hotFeedCache.invalidate(updatedUser.getUsername());
+        waveJsonCache.evictUser(updatedUser.getId());
+        return updatedUser;
     }
 }
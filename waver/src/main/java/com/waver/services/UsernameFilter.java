@@ -0,0 +1,93 @@
+package com.waver.services;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.user.UserRepository;
+import com.waver.shared.BloomFilter;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Taken usernames, so uniqueness checks for free names never reach the database.
+// Removed users stay in the filter; that only costs an extra exists query on their name.
+@Service
+public class UsernameFilter implements SmartInitializingSingleton {
+
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    UserRepository userRepository;
+
+    AppConfiguration appConfiguration;
+
+    private volatile BloomFilter filter;
+
+    private volatile BloomFilter rebuilding;
+
+    private final AtomicLong freeCount = new AtomicLong();
+
+    private final AtomicLong lookupCount = new AtomicLong();
+
+    public UsernameFilter(UserRepository userRepository, AppConfiguration appConfiguration) {
+        this.userRepository = userRepository;
+        this.appConfiguration = appConfiguration;
+    }
+
+    // Warms up once every bean exists, before the web server accepts requests.
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Builds a new filter from the database and swaps it in, so checks never see a half-filled filter.
+    // Usernames saved meanwhile go into both filters.
+    public synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(
+                appConfiguration.getUsernameFilterExpectedInsertions(),
+                appConfiguration.getUsernameFilterFalsePositiveProbability());
+        rebuilding = rebuilt;
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = userRepository.findIdsAndUsernamesAfter(lastId, PageRequest.of(0, WARM_UP_BATCH_SIZE));
+            for (Object[] row : batch){
+                rebuilt.put((String) row[1]);
+            }
+            if (!batch.isEmpty()){
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == WARM_UP_BATCH_SIZE);
+        filter = rebuilt;
+        rebuilding = null;
+    }
+
+    public void put(String username) {
+        BloomFilter current = filter;
+        if (current != null){
+            current.put(username);
+        }
+        BloomFilter next = rebuilding;
+        if (next != null){
+            next.put(username);
+        }
+    }
+
+    public boolean isTaken(String username) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(username)){
+            freeCount.incrementAndGet();
+            return false;
+        }
+        lookupCount.incrementAndGet();
+        return userRepository.existsByUsername(username);
+    }
+
+    public long getFreeCount() {
+        return freeCount.get();
+    }
+
+    public long getLookupCount() {
+        return lookupCount.get();
+    }
+}
@@ -0,0 +1,209 @@
+package com.waver.services;
+
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveRepository;
+import com.waver.model.wave.WavesImportedEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+@Service
+public class WaveCountIndex {
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    WaveRepository waveRepository;
+
+    private final SortedIdSet allWaves = new SortedIdSet();
+
+    private final Map<String, SortedIdSet> wavesByUsername = new ConcurrentHashMap<>();
+
+    // Guards loading and removedWhileLoading, so a delete is either seen by the loader or applied after its add.
+    private final Object loadLock = new Object();
+
+    private final Set<Long> removedWhileLoading = new HashSet<>();
+
+    private volatile boolean loaded;
+
+    private boolean loading;
+
+    public WaveCountIndex(WaveRepository waveRepository) {
+        this.waveRepository = waveRepository;
+    }
+
+    public long countGreaterThan(long id, String username) {
+        ensureLoaded();
+        if (username == null){
+            return allWaves.countGreaterThan(id);
+        }
+        SortedIdSet userWaves = wavesByUsername.get(username);
+        return userWaves == null ? 0 : userWaves.countGreaterThan(id);
+    }
+
+    public boolean isKnownUser(String username) {
+        ensureLoaded();
+        return wavesByUsername.containsKey(username);
+    }
+
+    public void registerUser(String username) {
+        wavesByUsername.computeIfAbsent(username, key -> new SortedIdSet());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveCreated(WaveCreatedEvent event) {
+        allWaves.add(event.getWaveId());
+        wavesByUsername.computeIfAbsent(event.getUsername(), key -> new SortedIdSet()).add(event.getWaveId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWavesImported(WavesImportedEvent event) {
+        SortedIdSet userWaves = wavesByUsername.computeIfAbsent(event.getUsername(), key -> new SortedIdSet());
+        for (Long waveId : event.getWaveIds()){
+            allWaves.add(waveId);
+            userWaves.add(waveId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveDeleted(WaveDeletedEvent event) {
+        synchronized (loadLock){
+            if (loading){
+                removedWhileLoading.add(event.getWaveId());
+            }
+        }
+        allWaves.remove(event.getWaveId());
+        SortedIdSet userWaves = wavesByUsername.get(event.getUsername());
+        if (userWaves != null){
+            userWaves.remove(event.getWaveId());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded){
+            return;
+        }
+        synchronized (this){
+            if (loaded){
+                return;
+            }
+            synchronized (loadLock){
+                loading = true;
+            }
+            try {
+                long lastId = 0;
+                List<Object[]> batch;
+                do {
+                    batch = waveRepository.findIdsWithUsernameAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                    synchronized (loadLock){
+                        for (Object[] row : batch){
+                            long waveId = (Long) row[0];
+                            String username = (String) row[1];
+                            lastId = waveId;
+                            if (removedWhileLoading.contains(waveId)){
+                                continue;
+                            }
+                            allWaves.add(waveId);
+                            wavesByUsername.computeIfAbsent(username, key -> new SortedIdSet()).add(waveId);
+                        }
+                    }
+                } while (batch.size() == LOAD_BATCH_SIZE);
+                loaded = true;
+            } finally {
+                synchronized (loadLock){
+                    loading = false;
+                    removedWhileLoading.clear();
+                }
+            }
+        }
+    }
+
+    static class SortedIdSet {
+
+        private final StampedLock lock = new StampedLock();
+
+        private long[] ids = new long[16];
+
+        private int size;
+
+        long countGreaterThan(long id) {
+            long stamp = lock.tryOptimisticRead();
+            long[] currentIds = ids;
+            int currentSize = size;
+            long count = currentSize - upperBound(currentIds, currentSize, id);
+            if (lock.validate(stamp)){
+                return count;
+            }
+            stamp = lock.readLock();
+            try {
+                return size - upperBound(ids, size, id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void add(long id) {
+            long stamp = lock.writeLock();
+            try {
+                if (size == 0 || ids[size - 1] < id){
+                    ensureCapacity();
+                    ids[size++] = id;
+                    return;
+                }
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0){
+                    return;
+                }
+                int insertAt = -position - 1;
+                ensureCapacity();
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+                ids[insertAt] = id;
+                size++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long id) {
+            long stamp = lock.writeLock();
+            try {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position < 0){
+                    return;
+                }
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length){
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+
+        private static int upperBound(long[] sortedIds, int size, long id) {
+            int low = 0;
+            int high = Math.min(size, sortedIds.length);
+            while (low < high){
+                int middle = (low + high) >>> 1;
+                if (sortedIds[middle] <= id){
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
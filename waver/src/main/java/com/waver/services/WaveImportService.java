@@ -0,0 +1,97 @@
+package com.waver.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.user.User;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveImportItem;
+import com.waver.model.wave.WaveImportResult;
+import com.waver.model.wave.WavesImportedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class WaveImportService {
+
+    EntityManager entityManager;
+
+    Validator validator;
+
+    AppConfiguration appConfiguration;
+
+    ApplicationEventPublisher eventPublisher;
+
+    public WaveImportService(
+            EntityManager entityManager,
+            Validator validator,
+            AppConfiguration appConfiguration,
+            ApplicationEventPublisher eventPublisher) {
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.appConfiguration = appConfiguration;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Reads items one at a time and flushes every waveImportFlushSize waves, so neither the input nor the
+    // persistence context grows with the import. Invalid items are skipped and counted; the first
+    // waveImportMaxReportedErrors of them are reported by index. A malformed document rolls the whole import back.
+    @Transactional(rollbackFor = IOException.class)
+    public WaveImportResult importWaves(User user, MappingIterator<WaveImportItem> items) throws IOException {
+        WaveImportResult result = new WaveImportResult();
+        List<Long> waveIds = new ArrayList<>();
+        Date now = new Date();
+        int flushSize = appConfiguration.getWaveImportFlushSize();
+        int maxReportedErrors = appConfiguration.getWaveImportMaxReportedErrors();
+        for (int index = 0; items.hasNextValue(); index++){
+            WaveImportItem item = items.nextValue();
+            Map<String, String> validationErrors = validate(item);
+            if (!validationErrors.isEmpty()){
+                result.setFailed(result.getFailed() + 1);
+                if (result.getErrors().size() < maxReportedErrors){
+                    result.getErrors().add(new WaveImportResult.ItemError(index, validationErrors));
+                }
+                continue;
+            }
+            Wave wave = new Wave();
+            wave.setContent(item.getContent());
+            wave.setTimestamp(item.getDate() == null ? now : new Date(item.getDate()));
+            wave.setUser(user);
+            entityManager.persist(wave);
+            waveIds.add(wave.getId());
+            if (waveIds.size() % flushSize == 0){
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        result.setImported(waveIds.size());
+        if (!waveIds.isEmpty()){
+            eventPublisher.publishEvent(new WavesImportedEvent(user, waveIds));
+        }
+        return result;
+    }
+
+    private Map<String, String> validate(WaveImportItem item) {
+        if (item == null){
+            return Collections.singletonMap("content", "must not be null");
+        }
+        Map<String, String> validationErrors = new HashMap<>();
+        for (ConstraintViolation<WaveImportItem> violation : validator.validate(item)){
+            validationErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return validationErrors;
+    }
+}
@@ -0,0 +1,166 @@
+package com.waver.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.AttachmentStatusChangedEvent;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.model.user.viewmodel.UserViewModel;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveViewModel;
+import lombok.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Serialized JSON of waves split around the embedded user, so a profile change only re-renders the user part.
+@Service
+public class WaveJsonCache {
+
+    private static final SerializedString NULL = new SerializedString("null");
+
+    // Plain mapper without the fragment serializer, used to render each fragment once.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final Map<Long, WaveFragments> waves;
+
+    private final Map<Long, UserFragment> users;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public WaveJsonCache(AppConfiguration appConfiguration) {
+        int maxWaves = appConfiguration.getWaveJsonCacheMaxSize();
+        int maxUsers = appConfiguration.getUserJsonCacheMaxSize();
+        this.waves = new LinkedHashMap<Long, WaveFragments>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, WaveFragments> eldest) {
+                return size() > maxWaves;
+            }
+        };
+        this.users = new LinkedHashMap<Long, UserFragment>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserFragment> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public WaveFragments getWaveFragments(WaveViewModel wave) throws JsonProcessingException {
+        synchronized (waves){
+            WaveFragments cached = waves.get(wave.getId());
+            if (cached != null){
+                hitCount.incrementAndGet();
+                return cached;
+            }
+        }
+        missCount.incrementAndGet();
+        WaveFragments fragments = renderWave(wave);
+        // An attachment still being processed will change status, so the wave is not final yet.
+        if (wave.getAttachment() != null && wave.getAttachment().getStatus() == FileAttachmentStatus.PENDING){
+            return fragments;
+        }
+        synchronized (waves){
+            waves.put(wave.getId(), fragments);
+        }
+        return fragments;
+    }
+
+    // The view model is part of the entry, so a stale model can never be answered with a newer fragment or vice versa.
+    public SerializableString getUserFragment(UserViewModel user) throws JsonProcessingException {
+        if (user == null){
+            return NULL;
+        }
+        synchronized (users){
+            UserFragment cached = users.get(user.getId());
+            if (cached != null && cached.getUser().equals(user)){
+                return cached.getJson();
+            }
+        }
+        UserFragment fragment = new UserFragment(user, new SerializedString(objectMapper.writeValueAsString(user)));
+        synchronized (users){
+            users.put(user.getId(), fragment);
+        }
+        return fragment.getJson();
+    }
+
+    public void evictUser(long userId) {
+        synchronized (users){
+            users.remove(userId);
+        }
+    }
+
+    public void evictWave(long waveId) {
+        synchronized (waves){
+            waves.remove(waveId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveDeleted(WaveDeletedEvent event) {
+        evictWave(event.getWaveId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttachmentStatusChanged(AttachmentStatusChangedEvent event) {
+        evictWave(event.getWaveId());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private WaveFragments renderWave(WaveViewModel wave) throws JsonProcessingException {
+        ObjectNode node = objectMapper.valueToTree(wave);
+        StringBuilder head = new StringBuilder("{");
+        StringBuilder tail = new StringBuilder();
+        StringBuilder current = head;
+        boolean first = true;
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()){
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!first){
+                current.append(',');
+            }
+            first = false;
+            current.append(objectMapper.writeValueAsString(field.getKey())).append(':');
+            if (field.getKey().equals("user")){
+                current = tail;
+                continue;
+            }
+            current.append(objectMapper.writeValueAsString(field.getValue()));
+        }
+        tail.append('}');
+        return new WaveFragments(new SerializedString(head.toString()), new SerializedString(tail.toString()));
+    }
+
+    @Value
+    public static class WaveFragments {
+
+        SerializableString head;
+
+        SerializableString tail;
+    }
+
+    @Value
+    static class UserFragment {
+
+        UserViewModel user;
+
+        SerializableString json;
+    }
+}
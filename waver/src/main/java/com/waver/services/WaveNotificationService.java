@@ -0,0 +1,123 @@
+package com.waver.services;
+
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WavesImportedEvent;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+@Service
+public class WaveNotificationService {
+
+    private static final String GLOBAL_FEED = "";
+
+    private static final long EMITTER_TIMEOUT = 30 * 60 * 1000;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    private final ExecutorService fanOutExecutor = Executors.newSingleThreadExecutor();
+
+    UserService userService;
+
+    public WaveNotificationService(UserService userService) {
+        this.userService = userService;
+    }
+
+    public SseEmitter subscribe(String username) {
+        if (username != null){
+            userService.getByUsername(username);
+        }
+        String feed = username == null ? GLOBAL_FEED : username;
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        Set<SseEmitter> feedSubscribers = subscribers.computeIfAbsent(feed, key -> new CopyOnWriteArraySet<>());
+        feedSubscribers.add(emitter);
+
+        emitter.onCompletion(() -> unsubscribe(feed, emitter));
+        emitter.onTimeout(() -> unsubscribe(feed, emitter));
+        emitter.onError(error -> unsubscribe(feed, emitter));
+
+        send(feed, emitter, createCountEvent(0, 0));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveCreated(WaveCreatedEvent event) {
+        fanOutExecutor.execute(() -> {
+            sendToFeed(GLOBAL_FEED, () -> createCountEvent(1, event.getWaveId()));
+            sendToFeed(event.getUsername(), () -> createCountEvent(1, event.getWaveId()));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWavesImported(WavesImportedEvent event) {
+        long count = event.getWaveIds().size();
+        long lastWaveId = event.getWaveIds().get(event.getWaveIds().size() - 1);
+        fanOutExecutor.execute(() -> {
+            sendToFeed(GLOBAL_FEED, () -> createCountEvent(count, lastWaveId));
+            sendToFeed(event.getUsername(), () -> createCountEvent(count, lastWaveId));
+        });
+    }
+
+    @Scheduled(fixedRate = 30 * 1000)
+    public void sendHeartbeat() {
+        fanOutExecutor.execute(() -> {
+            for (String feed : subscribers.keySet()){
+                sendToFeed(feed, () -> SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    private void sendToFeed(String feed, Supplier<SseEmitter.SseEventBuilder> eventSupplier) {
+        Set<SseEmitter> feedSubscribers = subscribers.get(feed);
+        if (feedSubscribers == null){
+            return;
+        }
+        for (SseEmitter emitter : feedSubscribers){
+            send(feed, emitter, eventSupplier.get());
+        }
+    }
+
+    private void send(String feed, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(feed, emitter);
+        }
+    }
+
+    private void unsubscribe(String feed, SseEmitter emitter) {
+        subscribers.computeIfPresent(feed, (key, feedSubscribers) -> {
+            feedSubscribers.remove(emitter);
+            return feedSubscribers.isEmpty() ? null : feedSubscribers;
+        });
+    }
+
+    private SseEmitter.SseEventBuilder createCountEvent(long count, long waveId) {
+        Map<String, Long> data = new HashMap<>();
+        data.put("count", count);
+        data.put("id", waveId);
+        return SseEmitter.event().name("count").data(data, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,126 @@
+package com.waver.services;
+
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveRepository;
+import com.waver.model.wave.WavesImportedEvent;
+import com.waver.shared.InvertedIndex;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Full-text index over wave content, loaded from the database on the first search and kept current from wave events.
+@Service
+public class WaveSearchIndex {
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    WaveRepository waveRepository;
+
+    private final Object swapLock = new Object();
+
+    private volatile InvertedIndex index;
+
+    private InvertedIndex rebuilding;
+
+    private Set<Long> deletedWhileRebuilding;
+
+    public WaveSearchIndex(WaveRepository waveRepository) {
+        this.waveRepository = waveRepository;
+    }
+
+    public List<Long> search(String query, String username, long before, int limit) {
+        ensureLoaded();
+        return index.search(query, username, before, limit);
+    }
+
+    // Builds a new index from the database and swaps it in; waves created or deleted meanwhile go into both.
+    // Rows of a batch are skipped if their wave was deleted after the batch was read.
+    public synchronized void rebuild() {
+        InvertedIndex rebuilt = new InvertedIndex();
+        synchronized (swapLock){
+            rebuilding = rebuilt;
+            deletedWhileRebuilding = new HashSet<>();
+        }
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = waveRepository.findContentsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            synchronized (swapLock){
+                for (Object[] row : batch){
+                    lastId = (Long) row[0];
+                    if (!deletedWhileRebuilding.contains(lastId)){
+                        rebuilt.add(lastId, (String) row[1], (String) row[2]);
+                    }
+                }
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        synchronized (swapLock){
+            index = rebuilt;
+            rebuilding = null;
+            deletedWhileRebuilding = null;
+        }
+    }
+
+    public long getDocumentCount() {
+        InvertedIndex current = index;
+        return current == null ? 0 : current.getDocumentCount();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveCreated(WaveCreatedEvent event) {
+        add(event.getWaveId(), event.getUsername(), event.getContent());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWavesImported(WavesImportedEvent event) {
+        List<Long> waveIds = event.getWaveIds();
+        for (int from = 0; from < waveIds.size(); from += IMPORT_BATCH_SIZE){
+            List<Long> chunk = waveIds.subList(from, Math.min(from + IMPORT_BATCH_SIZE, waveIds.size()));
+            for (Object[] row : waveRepository.findContentsByIdIn(chunk)){
+                add((Long) row[0], (String) row[1], (String) row[2]);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaveDeleted(WaveDeletedEvent event) {
+        synchronized (swapLock){
+            if (index != null){
+                index.remove(event.getWaveId(), event.getUsername());
+            }
+            if (rebuilding != null){
+                rebuilding.remove(event.getWaveId(), event.getUsername());
+                deletedWhileRebuilding.add(event.getWaveId());
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (index != null){
+            return;
+        }
+        synchronized (this){
+            if (index == null){
+                rebuild();
+            }
+        }
+    }
+
+    private void add(long waveId, String username, String content) {
+        synchronized (swapLock){
+            if (index != null){
+                index.add(waveId, username, content);
+            }
+            if (rebuilding != null){
+                rebuilding.add(waveId, username, content);
+            }
+        }
+    }
+}
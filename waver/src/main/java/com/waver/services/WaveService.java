@@ -1,12 +1,21 @@
 package com.waver.services;
 
+import com.waver.exception.InvalidAttachmentException;
 import com.waver.model.file.FileAttachment;
 import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentStatus;
 import com.waver.model.user.User;
 import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveCreatedEvent;
+import com.waver.model.wave.WaveDeletedEvent;
 import com.waver.model.wave.WaveRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +23,8 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -28,26 +39,54 @@ public class WaveService {
 
     FileService fileService;
 
+    WaveCountIndex waveCountIndex;
+
+    ApplicationEventPublisher eventPublisher;
+
+    AttachmentProcessingService attachmentProcessingService;
+
+    WaveSearchIndex waveSearchIndex;
+
     public WaveService(
             WaveRepository waveRepository,
             UserService userService,
             FileAttachmentRepository fileAttachmentRepository,
-            FileService fileService) {
+            FileService fileService,
+            WaveCountIndex waveCountIndex,
+            ApplicationEventPublisher eventPublisher,
+            AttachmentProcessingService attachmentProcessingService,
+            WaveSearchIndex waveSearchIndex) {
         this.waveRepository = waveRepository;
         this.userService = userService;
         this.fileAttachmentRepository = fileAttachmentRepository;
         this.fileService = fileService;
+        this.waveCountIndex = waveCountIndex;
+        this.eventPublisher = eventPublisher;
+        this.attachmentProcessingService = attachmentProcessingService;
+        this.waveSearchIndex = waveSearchIndex;
     }
 
     public Wave save(User user, Wave wave){
         wave.setTimestamp(new Date());
         wave.setUser(user);
         if(wave.getAttachment() != null){
+            FileAttachmentStatus status = attachmentProcessingService.awaitCompletion(wave.getAttachment().getId());
+            if (status == null){
+                throw new InvalidAttachmentException("Attachment not found");
+            }
+            if (status == FileAttachmentStatus.PENDING){
+                throw new InvalidAttachmentException("Attachment is still being processed, try again later");
+            }
+            if (status != FileAttachmentStatus.READY){
+                throw new InvalidAttachmentException("Attachment could not be processed");
+            }
             FileAttachment fileAttachmentInDb = fileAttachmentRepository.findById(wave.getAttachment().getId()).get();
             fileAttachmentInDb.setWave(wave);
             wave.setAttachment(fileAttachmentInDb);
         }
-        return waveRepository.save(wave);
+        Wave savedWave = waveRepository.save(wave);
+        eventPublisher.publishEvent(new WaveCreatedEvent(savedWave));
+        return savedWave;
     }
 
     public Page<Wave> getAllWaves(Pageable pageable) {
@@ -59,13 +98,13 @@ public class WaveService {
         return waveRepository.findByUser(userInDb, pageable);
     }
 
-    public Page<Wave> getOldWaves(long id, String username, Pageable pageable) {
-        Specification<Wave> spec = Specification.where(idLessThan(id));
+    public Slice<Wave> getOldWaves(long id, String username, Pageable pageable) {
+        Pageable seek = PageRequest.of(0, pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "id"));
         if (username != null){
             User userInDb = userService.getByUsername(username);
-            spec = spec.and(userIs(userInDb));
+            return waveRepository.findByIdLessThanAndUser(id, userInDb, seek);
         }
-        return waveRepository.findAll(spec, pageable);
+        return waveRepository.findByIdLessThan(id, seek);
     }
 
     public List<Wave> getNewWaves(long id, String username, Pageable pageable) {
@@ -78,12 +117,23 @@ public class WaveService {
     }
 
     public long getNewWavesCount(long id, String username) {
-        Specification<Wave> spec = Specification.where(idGreaterThan(id));
+        if (username != null && !waveCountIndex.isKnownUser(username)){
+            userService.getByUsername(username);
+            waveCountIndex.registerUser(username);
+        }
+        return waveCountIndex.countGreaterThan(id, username);
+    }
+
+    public Slice<Wave> searchWaves(String query, String username, long before, int size) {
         if (username != null){
-            User userInDb = userService.getByUsername(username);
-            spec = spec.and(userIs(userInDb));
+            userService.getByUsername(username);
         }
-        return waveRepository.count(spec);
+        List<Long> ids = waveSearchIndex.search(query, username, before, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        List<Wave> waves = pageIds.isEmpty() ? new ArrayList<>() : waveRepository.findByIdIn(pageIds);
+        waves.sort(Comparator.comparingLong(Wave::getId).reversed());
+        return new SliceImpl<>(waves, PageRequest.of(0, size), hasNext);
     }
 
     private Specification<Wave> userIs(User user){
@@ -92,12 +142,6 @@ public class WaveService {
         };
     }
 
-    private Specification<Wave> idLessThan(long id){
-        return(root, query, criteriaBuilder) -> {
-            return criteriaBuilder.lessThan(root.get("id"), id);
-        };
-    }
-
     private Specification<Wave> idGreaterThan(long id){
         return(root, query, criteriaBuilder) -> {
             return criteriaBuilder.greaterThan(root.get("id"), id);
@@ -109,6 +153,8 @@ public class WaveService {
         if (wave.getAttachment() != null){
             fileService.deleteAttachmentImage(wave.getAttachment().getName());
         }
+        WaveDeletedEvent deletedEvent = new WaveDeletedEvent(wave);
         waveRepository.deleteById(id);
+        eventPublisher.publishEvent(deletedEvent);
     }
 }
@@ -0,0 +1,65 @@
+package com.waver.shared;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Set membership with false positives but no false negatives. Sized for an expected number of
+// entries and false positive probability; bits are only ever set, so it is safe for concurrent use.
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long expected = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((Math.max(optimalBits, 64) + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++){
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0){
+                bits.accumulateAndGet(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++){
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with a mix step to spread the short inputs usernames are.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)){
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
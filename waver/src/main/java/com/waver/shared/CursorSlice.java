@@ -0,0 +1,37 @@
+package com.waver.shared;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+public class CursorSlice<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private int numberOfElements;
+
+    private boolean first;
+
+    private boolean last;
+
+    private Long nextCursor;
+
+    public <S> CursorSlice(Slice<S> slice, Function<S, T> mapper, Function<S, Long> cursorOf){
+        this.content = slice.getContent().stream().map(mapper).collect(Collectors.toList());
+        this.size = slice.getSize();
+        this.numberOfElements = slice.getNumberOfElements();
+        this.first = slice.isFirst();
+        this.last = !slice.hasNext();
+        if (slice.hasNext()){
+            this.nextCursor = cursorOf.apply(slice.getContent().get(slice.getNumberOfElements() - 1));
+        }
+    }
+}
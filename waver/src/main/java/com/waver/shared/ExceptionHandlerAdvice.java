@@ -1,7 +1,16 @@
 package com.waver.shared;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.waver.error.ApiError;
+import com.waver.exception.AttachmentTooLargeException;
 import com.waver.exception.CustomNotFoundException;
+import com.waver.exception.InvalidAttachmentException;
+import com.waver.exception.InvalidProfileImageException;
+import com.waver.exception.SelfFollowException;
+import com.waver.exception.UploadQueueFullException;
+import com.waver.exception.UsernameTakenException;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -11,12 +20,21 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
 public class ExceptionHandlerAdvice {
 
+    private final ResourceBundleMessageSource validationMessages = new ResourceBundleMessageSource();
+
+    public ExceptionHandlerAdvice() {
+        validationMessages.setBasename("ValidationMessages");
+        validationMessages.setDefaultEncoding("UTF-8");
+        validationMessages.setFallbackToSystemLocale(false);
+    }
+
     @ExceptionHandler({MethodArgumentNotValidException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     ApiError handleValidationException(MethodArgumentNotValidException exception, HttpServletRequest request){
@@ -37,6 +55,33 @@ public class ExceptionHandlerAdvice {
         return validationErrors;
     }
 
+    @ExceptionHandler({InvalidProfileImageException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ApiError handleInvalidProfileImageException(InvalidProfileImageException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(400, "Validation Error", request.getServletPath());
+        apiError.setValidationErrors(Collections.singletonMap("image", exception.getMessage()));
+        return apiError;
+    }
+
+    // Same answer as the @UniqueUsername check, for a name taken between that check and the insert.
+    @ExceptionHandler({UsernameTakenException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ApiError handleUsernameTakenException(UsernameTakenException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(400, "Validation Error", request.getServletPath());
+        String message = validationMessages.getMessage(
+                "waver.constraints.username.UniqueUsername.message", null, LocaleContextHolder.getLocale());
+        apiError.setValidationErrors(Collections.singletonMap("username", message));
+        return apiError;
+    }
+
+    @ExceptionHandler({InvalidAttachmentException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ApiError handleInvalidAttachmentException(InvalidAttachmentException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(400, "Validation Error", request.getServletPath());
+        apiError.setValidationErrors(Collections.singletonMap("attachment", exception.getMessage()));
+        return apiError;
+    }
+
     @ExceptionHandler({CustomNotFoundException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     ApiError handleNotFoundException(CustomNotFoundException exception, HttpServletRequest request){
@@ -44,4 +89,32 @@ public class ExceptionHandlerAdvice {
         return apiError;
     }
 
+    @ExceptionHandler({AttachmentTooLargeException.class})
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    ApiError handleAttachmentTooLargeException(AttachmentTooLargeException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(413, exception.getMessage(), request.getServletPath());
+        return apiError;
+    }
+
+    @ExceptionHandler({UploadQueueFullException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    ApiError handleUploadQueueFullException(UploadQueueFullException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(503, exception.getMessage(), request.getServletPath());
+        return apiError;
+    }
+
+    @ExceptionHandler({SelfFollowException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ApiError handleSelfFollowException(SelfFollowException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(400, exception.getMessage(), request.getServletPath());
+        return apiError;
+    }
+
+    @ExceptionHandler({JsonProcessingException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ApiError handleJsonProcessingException(JsonProcessingException exception, HttpServletRequest request){
+        ApiError apiError = new ApiError(400, exception.getOriginalMessage(), request.getServletPath());
+        return apiError;
+    }
+
 }
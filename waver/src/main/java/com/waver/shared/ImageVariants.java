@@ -0,0 +1,23 @@
+package com.waver.shared;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ImageVariants {
+
+    public static String variantName(String name, int size) {
+        return name + "_" + size;
+    }
+
+    public static Map<Integer, String> toMap(String name, String sizes) {
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        if (name == null || sizes == null || sizes.isEmpty()){
+            return variants;
+        }
+        for (String size : sizes.split(",")){
+            int variantSize = Integer.parseInt(size.trim());
+            variants.put(variantSize, variantName(name, variantSize));
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,343 @@
+package com.waver.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Term to document postings with in-document positions, answering term and phrase queries newest first.
+// Ids are kept ascending so indexing the newest document is an append; removed documents are tombstoned
+// and compacted out once they make up a tenth of the index.
+public class InvertedIndex {
+
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+
+    private static final int MIN_COMPACTION_SIZE = 1000;
+
+    private final Map<String, Postings> terms = new HashMap<>();
+
+    private final Map<String, Postings> users = new HashMap<>();
+
+    private final Set<Long> removed = new HashSet<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long documentCount;
+
+    public void add(long id, String username, String content) {
+        Map<String, int[]> termPositions = termPositions(tokenize(content));
+        lock.writeLock().lock();
+        try {
+            // Adding a document twice is a no-op, so a rebuild may overlap with live updates.
+            if (!users.computeIfAbsent(username, key -> new Postings()).add(id, null)){
+                return;
+            }
+            documentCount++;
+            for (Map.Entry<String, int[]> entry : termPositions.entrySet()){
+                terms.computeIfAbsent(entry.getKey(), key -> new Postings()).add(id, entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id, String username) {
+        lock.writeLock().lock();
+        try {
+            Postings userPostings = users.get(username);
+            if (userPostings == null || !userPostings.contains(id) || !removed.add(id)){
+                return;
+            }
+            if (removed.size() >= MIN_COMPACTION_SIZE && removed.size() * 10L >= documentCount){
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of documents older than before that contain every term and quoted phrase of the query, newest first.
+    public List<Long> search(String query, String username, long before, int limit) {
+        List<List<String>> phrases = parse(query);
+        List<Long> ids = new ArrayList<>();
+        if (phrases.isEmpty() || limit <= 0){
+            return ids;
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Cursor> termCursors = new HashMap<>();
+            for (List<String> phrase : phrases){
+                for (String term : phrase){
+                    Postings postings = terms.get(term);
+                    if (postings == null){
+                        return ids;
+                    }
+                    termCursors.computeIfAbsent(term, key -> new Cursor(postings, before));
+                }
+            }
+            List<Cursor> cursors = new ArrayList<>(termCursors.values());
+            if (username != null){
+                Postings userPostings = users.get(username);
+                if (userPostings == null){
+                    return ids;
+                }
+                cursors.add(new Cursor(userPostings, before));
+            }
+            // Walks the shortest list from its newest entry and probes the others, which only narrow from there.
+            Cursor lead = Collections.min(cursors, (a, b) -> Integer.compare(a.high, b.high));
+            for (int i = lead.high; i >= 0 && ids.size() < limit; i--){
+                long id = lead.postings.ids[i];
+                lead.at = i;
+                if (removed.contains(id) || !seekAll(cursors, lead, id) || !matchesPhrases(phrases, termCursors)){
+                    continue;
+                }
+                ids.add(id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount - removed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower-cased runs of letters and digits; everything else separates terms.
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null){
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++){
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0){
+                start = i;
+            } else if (!wordChar && start >= 0){
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Quoted parts become phrases, every other term is a phrase of its own.
+    static List<List<String>> parse(String query) {
+        List<List<String>> phrases = new ArrayList<>();
+        if (query == null){
+            return phrases;
+        }
+        Matcher matcher = PHRASE.matcher(query);
+        StringBuilder rest = new StringBuilder();
+        int last = 0;
+        while (matcher.find()){
+            rest.append(query, last, matcher.start()).append(' ');
+            List<String> phrase = tokenize(matcher.group(1));
+            if (!phrase.isEmpty()){
+                phrases.add(phrase);
+            }
+            last = matcher.end();
+        }
+        rest.append(query.substring(last));
+        for (String term : tokenize(rest.toString())){
+            phrases.add(Collections.singletonList(term));
+        }
+        return phrases;
+    }
+
+    private static Map<String, int[]> termPositions(List<String> tokens) {
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++){
+            positions.computeIfAbsent(tokens.get(i), key -> new ArrayList<>()).add(i);
+        }
+        Map<String, int[]> termPositions = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()){
+            termPositions.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return termPositions;
+    }
+
+    private static boolean seekAll(List<Cursor> cursors, Cursor lead, long id) {
+        for (Cursor cursor : cursors){
+            if (cursor != lead && !cursor.seek(id)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesPhrases(List<List<String>> phrases, Map<String, Cursor> termCursors) {
+        for (List<String> phrase : phrases){
+            if (phrase.size() > 1 && !matchesPhrase(phrase, termCursors)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesPhrase(List<String> phrase, Map<String, Cursor> termCursors) {
+        Cursor first = termCursors.get(phrase.get(0));
+        for (int p = first.postings.offsets[first.at]; p < first.postings.offsets[first.at + 1]; p++){
+            int start = first.postings.positions[p];
+            boolean match = true;
+            for (int k = 1; k < phrase.size() && match; k++){
+                Cursor next = termCursors.get(phrase.get(k));
+                int from = next.postings.offsets[next.at];
+                int to = next.postings.offsets[next.at + 1];
+                match = Arrays.binarySearch(next.postings.positions, from, to, start + k) >= 0;
+            }
+            if (match){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compact() {
+        Iterator<Postings> termPostings = terms.values().iterator();
+        while (termPostings.hasNext()){
+            Postings postings = termPostings.next();
+            postings.removeAll(removed);
+            if (postings.size == 0){
+                termPostings.remove();
+            }
+        }
+        Iterator<Postings> userPostings = users.values().iterator();
+        while (userPostings.hasNext()){
+            Postings postings = userPostings.next();
+            documentCount -= postings.removeAll(removed);
+            if (postings.size == 0){
+                userPostings.remove();
+            }
+        }
+        removed.clear();
+    }
+
+    // Position in one postings list while a query walks backwards through ids.
+    private static class Cursor {
+
+        private final Postings postings;
+
+        private int high;
+
+        private int at;
+
+        Cursor(Postings postings, long before) {
+            this.postings = postings;
+            int position = Arrays.binarySearch(postings.ids, 0, postings.size, before);
+            this.high = (position >= 0 ? position : -position - 1) - 1;
+        }
+
+        boolean seek(long id) {
+            int position = Arrays.binarySearch(postings.ids, 0, high + 1, id);
+            if (position >= 0){
+                at = position;
+                high = position;
+                return true;
+            }
+            high = -position - 2;
+            return false;
+        }
+    }
+
+    // Ascending ids; the positions of ids[i] are positions[offsets[i]] up to positions[offsets[i + 1]].
+    private static class Postings {
+
+        private long[] ids = new long[4];
+
+        private int[] offsets = new int[5];
+
+        private int[] positions = new int[4];
+
+        private int size;
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        boolean add(long id, int[] termPositions) {
+            int index;
+            if (size == 0 || ids[size - 1] < id){
+                index = size;
+            } else {
+                int found = Arrays.binarySearch(ids, 0, size, id);
+                if (found >= 0){
+                    return false;
+                }
+                index = -found - 1;
+            }
+            int count = termPositions == null ? 0 : termPositions.length;
+            int total = offsets[size];
+            ensureCapacity(total + count);
+            int start = offsets[index];
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            System.arraycopy(positions, start, positions, start + count, total - start);
+            if (count > 0){
+                System.arraycopy(termPositions, 0, positions, start, count);
+            }
+            for (int i = size; i > index; i--){
+                offsets[i + 1] = offsets[i] + count;
+            }
+            offsets[index + 1] = start + count;
+            size++;
+            return true;
+        }
+
+        int removeAll(Set<Long> removedIds) {
+            int kept = 0;
+            int keptPositions = 0;
+            for (int i = 0; i < size; i++){
+                if (removedIds.contains(ids[i])){
+                    continue;
+                }
+                int from = offsets[i];
+                int count = offsets[i + 1] - from;
+                System.arraycopy(positions, from, positions, keptPositions, count);
+                ids[kept] = ids[i];
+                offsets[kept] = keptPositions;
+                keptPositions += count;
+                kept++;
+            }
+            offsets[kept] = keptPositions;
+            int dropped = size - kept;
+            size = kept;
+            return dropped;
+        }
+
+        private void ensureCapacity(int positionCount) {
+            if (size + 1 > ids.length){
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                offsets = Arrays.copyOf(offsets, ids.length + 1);
+            }
+            if (positionCount > positions.length){
+                positions = Arrays.copyOf(positions, Math.max(positionCount, positions.length * 2));
+            }
+        }
+    }
+}
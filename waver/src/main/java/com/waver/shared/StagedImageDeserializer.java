@@ -0,0 +1,88 @@
+package com.waver.shared;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.waver.configuration.AppConfiguration;
+import com.waver.services.FileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Decodes a Base64 JSON string into a staging file while the body is parsed, so the image never
+// exists in memory as a String or byte[]. The file is removed when the request completes unless
+// it was stored by then.
+public class StagedImageDeserializer extends JsonDeserializer<Path> {
+
+    @Autowired
+    FileService fileService;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @Override
+    public Path deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        Path staged = fileService.createStagingFile();
+        deleteAfterRequest(staged);
+        long maxSize = appConfiguration.getMaxAttachmentSize();
+        try (OutputStream output = new LimitedOutputStream(Files.newOutputStream(staged), maxSize)) {
+            parser.readBinaryValue(context.getBase64Variant(), output);
+        } catch (IOException | IllegalArgumentException e) {
+            // Invalid Base64 or an oversized image: the parser skips the rest of the string on its next
+            // token, and the emptied file fails image validation like any other unsupported content.
+            Files.write(staged, new byte[0]);
+        }
+        return staged;
+    }
+
+    private static void deleteAfterRequest(Path staged) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null){
+            return;
+        }
+        attributes.registerDestructionCallback(staged.toString(), () -> {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static class LimitedOutputStream extends FilterOutputStream {
+
+        private final long maxSize;
+
+        private long written;
+
+        LimitedOutputStream(OutputStream output, long maxSize) {
+            super(output);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            count(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count(len);
+            out.write(b, off, len);
+        }
+
+        private void count(int length) throws IOException {
+            written += length;
+            if (written > maxSize){
+                throw new IOException("Image exceeds " + maxSize + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.waver.shared;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.waver.model.wave.WaveViewModel;
+import com.waver.services.WaveJsonCache;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+@JsonComponent
+public class WaveViewModelSerializer extends JsonSerializer<WaveViewModel> {
+
+    WaveJsonCache waveJsonCache;
+
+    public WaveViewModelSerializer(WaveJsonCache waveJsonCache) {
+        this.waveJsonCache = waveJsonCache;
+    }
+
+    @Override
+    public void serialize(WaveViewModel wave, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        WaveJsonCache.WaveFragments fragments = waveJsonCache.getWaveFragments(wave);
+        generator.writeRawValue(fragments.getHead());
+        generator.writeRaw(waveJsonCache.getUserFragment(wave.getUser()));
+        generator.writeRaw(fragments.getTail());
+    }
+}
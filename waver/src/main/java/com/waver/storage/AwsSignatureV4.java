@@ -0,0 +1,106 @@
+package com.waver.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class AwsSignatureV4 {
+
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    public static final String EMPTY_PAYLOAD_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    private final String service;
+
+    public AwsSignatureV4(String accessKey, String secretKey, String region, String service) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+        this.service = service;
+    }
+
+    // Headers must contain host, x-amz-date and x-amz-content-sha256; every header passed in is signed.
+    public String authorization(String method, String canonicalUri, String canonicalQuery, Map<String, String> headers) {
+        SortedMap<String, String> canonicalHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> canonicalHeaders.put(name.toLowerCase(), value.trim()));
+        String amzDate = canonicalHeaders.get("x-amz-date");
+        String date = amzDate.substring(0, 8);
+        String signedHeaders = String.join(";", canonicalHeaders.keySet());
+
+        StringBuilder canonicalRequest = new StringBuilder()
+                .append(method).append('\n')
+                .append(canonicalUri).append('\n')
+                .append(canonicalQuery).append('\n');
+        canonicalHeaders.forEach((name, value) -> canonicalRequest.append(name).append(':').append(value).append('\n'));
+        canonicalRequest.append('\n')
+                .append(signedHeaders).append('\n')
+                .append(canonicalHeaders.get("x-amz-content-sha256"));
+
+        String scope = date + "/" + region + "/" + service + "/aws4_request";
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonicalRequest.toString()));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, service);
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope
+                + ",SignedHeaders=" + signedHeaders
+                + ",Signature=" + signature;
+    }
+
+    public static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)){
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/'){
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit((c >> 4) & 0xF, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes){
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
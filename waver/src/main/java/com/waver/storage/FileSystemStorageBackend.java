@@ -0,0 +1,56 @@
+package com.waver.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public abstract class FileSystemStorageBackend implements StorageBackend {
+
+    protected final Path root;
+
+    protected FileSystemStorageBackend(Path root) {
+        this.root = root;
+    }
+
+    protected abstract Path resolve(String key);
+
+    @Override
+    public void store(String key, Path staged) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public Resource load(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? new FileSystemResource(file) : null;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    protected void checkKey(String key) {
+        for (String segment : key.split("/")){
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")){
+                throw new IllegalArgumentException("Invalid storage key: " + key);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.waver.storage;
+
+import java.nio.file.Path;
+
+public class LocalStorageBackend extends FileSystemStorageBackend {
+
+    public LocalStorageBackend(Path root) {
+        super(root);
+    }
+
+    @Override
+    protected Path resolve(String key) {
+        checkKey(key);
+        return root.resolve(key);
+    }
+}
@@ -0,0 +1,171 @@
+package com.waver.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class S3StorageBackend implements StorageBackend {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final String endpoint;
+
+    private final String bucket;
+
+    private final AwsSignatureV4 signer;
+
+    public S3StorageBackend(String endpoint, String bucket, AwsSignatureV4 signer) {
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.bucket = bucket;
+        this.signer = signer;
+    }
+
+    @Override
+    public void store(String key, Path staged) throws IOException {
+        long size = Files.size(staged);
+        HttpURLConnection connection = open("PUT", key);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(size);
+        try (OutputStream output = connection.getOutputStream()) {
+            Files.copy(staged, output);
+        }
+        try {
+            expectSuccess(connection, key);
+        } finally {
+            connection.disconnect();
+        }
+        Files.deleteIfExists(staged);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return head(key) != null;
+    }
+
+    @Override
+    public Resource load(String key) throws IOException {
+        return head(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpURLConnection connection = open("DELETE", key);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_NOT_FOUND){
+                expectSuccess(connection, key);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private S3ObjectResource head(String key) throws IOException {
+        HttpURLConnection connection = open("HEAD", key);
+        try {
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND){
+                return null;
+            }
+            expectSuccess(connection, key);
+            return new S3ObjectResource(key, connection.getContentLengthLong(), connection.getLastModified());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String method, String key) throws IOException {
+        String canonicalUri = AwsSignatureV4.encodePath("/" + bucket + "/" + key);
+        URL url = new URL(endpoint + canonicalUri);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("host", url.getPort() == -1 || url.getPort() == url.getDefaultPort()
+                ? url.getHost() : url.getHost() + ":" + url.getPort());
+        headers.put("x-amz-content-sha256", "PUT".equals(method) ? AwsSignatureV4.UNSIGNED_PAYLOAD : AwsSignatureV4.EMPTY_PAYLOAD_HASH);
+        headers.put("x-amz-date", ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE));
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("x-amz-content-sha256", headers.get("x-amz-content-sha256"));
+        connection.setRequestProperty("x-amz-date", headers.get("x-amz-date"));
+        connection.setRequestProperty("Authorization", signer.authorization(method, canonicalUri, "", headers));
+        return connection;
+    }
+
+    private void expectSuccess(HttpURLConnection connection, String key) throws IOException {
+        int status = connection.getResponseCode();
+        if (status / 100 != 2){
+            throw new IOException("Storage request for " + key + " failed with status " + status);
+        }
+    }
+
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+
+        private final long contentLength;
+
+        private final long lastModified;
+
+        S3ObjectResource(String key, long contentLength, long lastModified) {
+            this.key = key;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            HttpURLConnection connection = open("GET", key);
+            expectSuccess(connection, key);
+            return new FilterInputStream(connection.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        connection.disconnect();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.waver.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class ShardedStorageBackend extends FileSystemStorageBackend {
+
+    public ShardedStorageBackend(Path root) {
+        super(root);
+    }
+
+    @Override
+    protected Path resolve(String key) {
+        checkKey(key);
+        int separator = key.lastIndexOf('/');
+        String name = key.substring(separator + 1);
+        byte[] hash = md5(name);
+        Path folder = separator < 0 ? root : root.resolve(key.substring(0, separator));
+        return folder.resolve(String.format("%02x", hash[0])).resolve(String.format("%02x", hash[1])).resolve(name);
+    }
+
+    private byte[] md5(String name) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(name.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
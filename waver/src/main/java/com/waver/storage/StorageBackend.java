@@ -0,0 +1,19 @@
+package com.waver.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface StorageBackend {
+
+    // The staged file is moved or uploaded under the key and does not exist afterwards.
+    void store(String key, Path staged) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    // Returns null when nothing is stored under the key.
+    Resource load(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+}
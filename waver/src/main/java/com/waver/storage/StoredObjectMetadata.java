@@ -0,0 +1,34 @@
+package com.waver.storage;
+
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+@Getter
+public class StoredObjectMetadata {
+
+    private final Resource resource;
+
+    private final Path file;
+
+    private final long length;
+
+    private final long lastModified;
+
+    private final String etag;
+
+    private final String contentType;
+
+    private final long expiresAt;
+
+    public StoredObjectMetadata(Resource resource, Path file, long length, long lastModified, String contentType, long expiresAt) {
+        this.resource = resource;
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified / 1000 * 1000;
+        this.etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(this.lastModified) + "\"";
+        this.contentType = contentType;
+        this.expiresAt = expiresAt;
+    }
+}
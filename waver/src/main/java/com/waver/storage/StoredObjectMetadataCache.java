@@ -0,0 +1,70 @@
+package com.waver.storage;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.services.ContentTypeDetector;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class StoredObjectMetadataCache {
+
+    private final StorageBackend storageBackend;
+
+    private final ContentTypeDetector contentTypeDetector;
+
+    private final long ttlMillis;
+
+    private final Map<String, StoredObjectMetadata> entries;
+
+    public StoredObjectMetadataCache(StorageBackend storageBackend, ContentTypeDetector contentTypeDetector, AppConfiguration appConfiguration) {
+        this.storageBackend = storageBackend;
+        this.contentTypeDetector = contentTypeDetector;
+        this.ttlMillis = appConfiguration.getImageMetadataCacheTtlSeconds() * 1000;
+        int maxSize = appConfiguration.getImageMetadataCacheMaxSize();
+        this.entries = new LinkedHashMap<String, StoredObjectMetadata>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredObjectMetadata> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public StoredObjectMetadata get(String key) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized (entries){
+            StoredObjectMetadata cached = entries.get(key);
+            if (cached != null && cached.getExpiresAt() >= now){
+                return cached;
+            }
+        }
+        Resource resource = storageBackend.load(key);
+        if (resource == null){
+            evict(key);
+            return null;
+        }
+        Path file = resource.isFile() ? resource.getFile().toPath() : null;
+        // Stored names carry no extension, so the type is detected the same way the upload detected it.
+        String contentType;
+        try (InputStream inputStream = resource.getInputStream()) {
+            contentType = contentTypeDetector.detect(inputStream);
+        }
+        StoredObjectMetadata metadata = new StoredObjectMetadata(
+                resource, file, resource.contentLength(), resource.lastModified(), contentType, now + ttlMillis);
+        synchronized (entries){
+            entries.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    public void evict(String key) {
+        synchronized (entries){
+            entries.remove(key);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+create index idx_wave_user_id_id on wave (user_id, id);
+
+create index idx_file_attachment_wave_id_date on file_attachment (wave_id, date);
+
+create unique index uk_user_username on user (username);
@@ -0,0 +1,3 @@
+alter table file_attachment add column status varchar(255);
+
+update file_attachment set status = 'READY';
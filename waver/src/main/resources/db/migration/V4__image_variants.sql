@@ -0,0 +1,3 @@
+alter table file_attachment add column variants varchar(255);
+
+alter table user add column image_variants varchar(255);
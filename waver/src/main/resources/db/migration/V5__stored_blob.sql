@@ -0,0 +1,5 @@
+create table stored_blob (
+    path varchar(255) not null,
+    ref_count bigint not null,
+    primary key (path)
+);
@@ -0,0 +1,8 @@
+create table scheduler_lock (
+    name varchar(64) not null,
+    locked_until timestamp not null,
+    locked_by varchar(255),
+    primary key (name)
+);
+
+insert into scheduler_lock (name, locked_until) values ('attachment-cleanup', timestamp '1970-01-01 00:00:00');
@@ -0,0 +1,12 @@
+create table follow (
+    id bigint not null,
+    timestamp timestamp,
+    follower_id bigint,
+    followee_id bigint,
+    primary key (id)
+);
+
+alter table follow add constraint fk_follow_follower foreign key (follower_id) references user;
+alter table follow add constraint fk_follow_followee foreign key (followee_id) references user;
+create unique index uk_follow_follower_id_followee_id on follow (follower_id, followee_id);
+create index idx_follow_followee_id_follower_id on follow (followee_id, follower_id);
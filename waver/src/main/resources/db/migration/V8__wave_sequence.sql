@@ -0,0 +1 @@
+create sequence wave_sequence start with (select coalesce(max(id), 0) + 1 from wave) increment by 50;
@@ -0,0 +1 @@
+alter table file_attachment add column owner_id bigint;
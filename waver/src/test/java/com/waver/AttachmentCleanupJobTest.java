@@ -0,0 +1,181 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.TestUtil;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.lock.SchedulerLock;
+import com.waver.model.lock.SchedulerLockRepository;
+import com.waver.model.user.UserRepository;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveRepository;
+import com.waver.services.AttachmentCleanupJob;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class AttachmentCleanupJobTest {
+
+    private static final long TWO_HOURS = 2 * 60 * 60 * 1000;
+
+    @Autowired
+    AttachmentCleanupJob attachmentCleanupJob;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    WaveRepository waveRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @Before
+    public void init() throws IOException {
+        fileAttachmentRepository.deleteAll();
+        waveRepository.deleteAll();
+        userRepository.deleteAll();
+        resetLock(null, new Date(0));
+        new File(appConfiguration.getFullAttachmentsPath()).mkdirs();
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        appConfiguration.setCleanupBatchSize(500);
+        fileAttachmentRepository.deleteAll();
+        waveRepository.deleteAll();
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+    }
+
+    @Test
+    public void cleanupStorage_whenOldOrphanExists_removesFileFromStorage() throws IOException {
+        FileAttachment attachment = saveAttachment("old-file", TWO_HOURS, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(attachmentFile(attachment).exists()).isFalse();
+    }
+
+    @Test
+    public void cleanupStorage_whenOldOrphanExists_removesFileAttachmentFromDb() throws IOException {
+        FileAttachment attachment = saveAttachment("old-file", TWO_HOURS, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(fileAttachmentRepository.existsById(attachment.getId())).isFalse();
+    }
+
+    @Test
+    public void cleanupStorage_whenOrphansSpanSeveralBatches_removesAll() throws IOException {
+        appConfiguration.setCleanupBatchSize(2);
+        for (int i = 0; i < 5; i++){
+            saveAttachment("old-file-" + i, TWO_HOURS, null);
+        }
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(fileAttachmentRepository.count()).isEqualTo(0);
+        assertThat(new File(appConfiguration.getFullAttachmentsPath()).list()).isEmpty();
+    }
+
+    @Test
+    public void cleanupStorage_whenOrphanIsRecent_keepsIt() throws IOException {
+        FileAttachment attachment = saveAttachment("recent-file", 0, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(fileAttachmentRepository.existsById(attachment.getId())).isTrue();
+        assertThat(attachmentFile(attachment).exists()).isTrue();
+    }
+
+    @Test
+    public void cleanupStorage_whenOldAttachmentHasWave_keepsIt() throws IOException {
+        Wave wave = waveRepository.save(TestUtil.createValidWave());
+        FileAttachment attachment = saveAttachment("linked-file", TWO_HOURS, wave);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(fileAttachmentRepository.existsById(attachment.getId())).isTrue();
+        assertThat(attachmentFile(attachment).exists()).isTrue();
+    }
+
+    @Test
+    public void cleanupStorage_whenLockHeldByAnotherNode_removesNothing() throws IOException {
+        resetLock("other-node", new Date(System.currentTimeMillis() + TWO_HOURS));
+        FileAttachment attachment = saveAttachment("old-file", TWO_HOURS, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(fileAttachmentRepository.existsById(attachment.getId())).isTrue();
+        assertThat(attachmentFile(attachment).exists()).isTrue();
+    }
+
+    @Test
+    public void cleanupStorage_whenFinished_releasesLock() throws IOException {
+        saveAttachment("old-file", TWO_HOURS, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        SchedulerLock lock = schedulerLockRepository.findById(AttachmentCleanupJob.LOCK_NAME).get();
+        assertThat(lock.getLockedUntil()).isBeforeOrEqualsTo(new Date());
+    }
+
+    @Test
+    public void cleanupStorage_whenOrphansRemoved_updatesCounters() throws IOException {
+        long deletedRows = attachmentCleanupJob.getDeletedRowCount();
+        long deletedFiles = attachmentCleanupJob.getDeletedFileCount();
+        saveAttachment("old-file-1", TWO_HOURS, null);
+        saveAttachment("old-file-2", TWO_HOURS, null);
+
+        attachmentCleanupJob.cleanupStorage();
+
+        assertThat(attachmentCleanupJob.getDeletedRowCount() - deletedRows).isEqualTo(2);
+        assertThat(attachmentCleanupJob.getDeletedFileCount() - deletedFiles).isEqualTo(2);
+        assertThat(attachmentCleanupJob.isRunning()).isFalse();
+    }
+
+    private void resetLock(String owner, Date lockedUntil) {
+        SchedulerLock lock = new SchedulerLock();
+        lock.setName(AttachmentCleanupJob.LOCK_NAME);
+        lock.setLockedBy(owner);
+        lock.setLockedUntil(lockedUntil);
+        schedulerLockRepository.save(lock);
+    }
+
+    private FileAttachment saveAttachment(String name, long age, Wave wave) throws IOException {
+        FileUtils.copyFile(new ClassPathResource("profile.png").getFile(),
+                new File(appConfiguration.getFullAttachmentsPath() + "/" + name));
+        FileAttachment attachment = new FileAttachment();
+        attachment.setName(name);
+        attachment.setDate(new Date(System.currentTimeMillis() - age));
+        attachment.setWave(wave);
+        return fileAttachmentRepository.save(attachment);
+    }
+
+    private File attachmentFile(FileAttachment attachment) {
+        return new File(appConfiguration.getFullAttachmentsPath() + "/" + attachment.getName());
+    }
+}
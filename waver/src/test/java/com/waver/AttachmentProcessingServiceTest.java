@@ -0,0 +1,122 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.AttachmentStatusChangedEvent;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.services.AttachmentProcessingService;
+import com.waver.services.FileService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AttachmentProcessingServiceTest {
+
+    private static final long PROCESSING_DELAY_MILLIS = 200;
+
+    FileService fileService;
+
+    FileAttachmentRepository fileAttachmentRepository;
+
+    ApplicationEventPublisher eventPublisher;
+
+    AttachmentProcessingService attachmentProcessingService;
+
+    @Before
+    public void init() throws Exception {
+        fileService = Mockito.mock(FileService.class);
+        fileAttachmentRepository = Mockito.mock(FileAttachmentRepository.class);
+        AppConfiguration appConfiguration = new AppConfiguration();
+        appConfiguration.setAttachmentAwaitTimeoutSeconds(10);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        attachmentProcessingService = new AttachmentProcessingService(fileService, fileAttachmentRepository, appConfiguration, eventPublisher);
+        FileAttachment pending = new FileAttachment();
+        pending.setId(1);
+        pending.setName("staged");
+        pending.setStatus(FileAttachmentStatus.PENDING);
+        Mockito.when(fileService.savePendingAttachment(Mockito.any(), Mockito.any())).thenReturn(pending);
+    }
+
+    @After
+    public void shutdown() {
+        attachmentProcessingService.shutdown();
+    }
+
+    @Test
+    public void awaitCompletion_whenProcessingThrowsRuntimeException_returnsFailedWithoutWaitingForTimeout() throws Exception {
+        Mockito.when(fileService.completePendingAttachment("staged")).thenAnswer(afterDelay(invocation -> {
+            throw new IllegalStateException("broken image");
+        }));
+
+        long startedAt = System.nanoTime();
+        long id = attachmentProcessingService.saveAttachmentAsync(Mockito.mock(MultipartFile.class), null).getId();
+
+        assertThat(attachmentProcessingService.awaitCompletion(id)).isEqualTo(FileAttachmentStatus.FAILED);
+        assertThat(System.nanoTime() - startedAt).isLessThan(5_000_000_000L);
+    }
+
+    @Test
+    public void awaitCompletion_whenStoringResultThrows_returnsFailedWithoutWaitingForTimeout() throws Exception {
+        FileAttachment processed = new FileAttachment();
+        processed.setName("stored");
+        processed.setFileType("image/png");
+        Mockito.when(fileService.completePendingAttachment("staged")).thenAnswer(afterDelay(invocation -> processed));
+        Mockito.when(fileAttachmentRepository.updateProcessingResult(
+                Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new IllegalStateException("database is down"));
+
+        long startedAt = System.nanoTime();
+        long id = attachmentProcessingService.saveAttachmentAsync(Mockito.mock(MultipartFile.class), null).getId();
+
+        assertThat(attachmentProcessingService.awaitCompletion(id)).isEqualTo(FileAttachmentStatus.FAILED);
+        assertThat(System.nanoTime() - startedAt).isLessThan(5_000_000_000L);
+    }
+
+    @Test
+    public void awaitCompletion_whenAttachmentWasLinkedToWave_publishesStatusChange() throws Exception {
+        FileAttachment processed = new FileAttachment();
+        processed.setName("stored");
+        Mockito.when(fileService.completePendingAttachment("staged")).thenAnswer(afterDelay(invocation -> processed));
+        Mockito.when(fileAttachmentRepository.findWaveIdAndUsernameById(1L))
+                .thenReturn(Collections.singletonList(new Object[]{10L, "user1"}));
+
+        long id = attachmentProcessingService.saveAttachmentAsync(Mockito.mock(MultipartFile.class), null).getId();
+        attachmentProcessingService.awaitCompletion(id);
+
+        ArgumentCaptor<AttachmentStatusChangedEvent> event = ArgumentCaptor.forClass(AttachmentStatusChangedEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getWaveId()).isEqualTo(10L);
+        assertThat(event.getValue().getUsername()).isEqualTo("user1");
+        assertThat(event.getValue().getStatus()).isEqualTo(FileAttachmentStatus.READY);
+    }
+
+    @Test
+    public void awaitCompletion_whenNotInProgress_returnsStoredStatus(){
+        FileAttachment failed = new FileAttachment();
+        failed.setStatus(FileAttachmentStatus.FAILED);
+        Mockito.when(fileAttachmentRepository.findById(5L)).thenReturn(Optional.of(failed));
+
+        assertThat(attachmentProcessingService.awaitCompletion(5)).isEqualTo(FileAttachmentStatus.FAILED);
+        assertThat(attachmentProcessingService.awaitCompletion(6)).isNull();
+    }
+
+    // Keeps the worker busy until the test waits on it, so the status comes from the in-progress future
+    // rather than from the repository mock after the worker already finished.
+    private <T> Answer<T> afterDelay(Answer<T> answer) {
+        return invocation -> {
+            Thread.sleep(PROCESSING_DELAY_MILLIS);
+            return answer.answer(invocation);
+        };
+    }
+}
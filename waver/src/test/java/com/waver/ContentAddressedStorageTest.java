@@ -0,0 +1,124 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.StoredBlobRepository;
+import com.waver.services.FileService;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ContentAddressedStorageTest {
+
+    @Autowired
+    FileService fileService;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    StoredBlobRepository storedBlobRepository;
+
+    @Before
+    public void init() throws IOException {
+        fileAttachmentRepository.deleteAll();
+        storedBlobRepository.deleteAll();
+        new File(appConfiguration.getFullAttachmentsPath()).mkdirs();
+        new File(appConfiguration.getFullProfileImagesPath()).mkdirs();
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullProfileImagesPath()));
+        appConfiguration.setContentAddressedStorage(true);
+    }
+
+    @After
+    public void cleanup() {
+        appConfiguration.setContentAddressedStorage(false);
+    }
+
+    @Test
+    public void saveAttachment_whenSameContentUploadedTwice_storesSingleBlobNamedByDigest() throws IOException {
+        FileAttachment first = fileService.saveAttachment(createFile(), null);
+        FileAttachment second = fileService.saveAttachment(createFile(), null);
+
+        assertThat(first.getName()).isEqualTo(second.getName());
+        assertThat(first.getName()).matches("[0-9a-f]{64}");
+        assertThat(new File(appConfiguration.getFullAttachmentsPath()).list())
+                .containsExactlyInAnyOrder(first.getName(), first.getName() + "_64");
+    }
+
+    @Test
+    public void saveAttachment_whenSameContentUploadedTwice_keepsReferenceCountInDb() throws IOException {
+        FileAttachment attachment = fileService.saveAttachment(createFile(), null);
+        fileService.saveAttachment(createFile(), null);
+
+        long refCount = storedBlobRepository.findById("attachments/" + attachment.getName()).get().getRefCount();
+
+        assertThat(refCount).isEqualTo(2);
+    }
+
+    @Test
+    public void deleteAttachmentImage_whenBlobIsStillReferenced_keepsBlobInStorage() throws IOException {
+        FileAttachment attachment = fileService.saveAttachment(createFile(), null);
+        fileService.saveAttachment(createFile(), null);
+
+        fileService.deleteAttachmentImage(attachment.getName());
+
+        assertThat(new File(appConfiguration.getFullAttachmentsPath() + "/" + attachment.getName())).exists();
+    }
+
+    @Test
+    public void deleteAttachmentImage_whenLastReferenceIsRemoved_unlinksBlobAndVariants() throws IOException {
+        FileAttachment attachment = fileService.saveAttachment(createFile(), null);
+        fileService.saveAttachment(createFile(), null);
+
+        fileService.deleteAttachmentImage(attachment.getName());
+        fileService.deleteAttachmentImage(attachment.getName());
+
+        assertThat(new File(appConfiguration.getFullAttachmentsPath()).list()).isEmpty();
+        assertThat(storedBlobRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void saveProfileImage_whenSameImageSavedTwice_returnsSameName() throws IOException {
+        String first = fileService.saveProfileImage(stageProfileImage());
+        String second = fileService.saveProfileImage(stageProfileImage());
+
+        assertThat(first).isEqualTo(second);
+        assertThat(new File(appConfiguration.getFullProfileImagesPath()).list())
+                .containsExactlyInAnyOrder(first, first + "_64");
+    }
+
+    private MockMultipartFile createFile() throws IOException {
+        return new MockMultipartFile("profile.png", readProfileImage());
+    }
+
+    private Path stageProfileImage() throws IOException {
+        return Files.write(fileService.createStagingFile(), readProfileImage());
+    }
+
+    private byte[] readProfileImage() throws IOException {
+        return FileUtils.readFileToByteArray(new ClassPathResource("profile.png").getFile());
+    }
+}
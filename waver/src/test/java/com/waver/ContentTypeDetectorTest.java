@@ -0,0 +1,48 @@
+package com.waver;
+
+import com.waver.services.ContentTypeDetector;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContentTypeDetectorTest {
+
+    ContentTypeDetector contentTypeDetector = new ContentTypeDetector();
+
+    @Test
+    public void detect_whenPngProvided_returnsImagePng() throws IOException {
+        byte[] png = FileUtils.readFileToByteArray(new ClassPathResource("test-png.png").getFile());
+
+        assertThat(contentTypeDetector.detect(png)).isEqualTo("image/png");
+    }
+
+    @Test
+    public void detect_whenJpegProvided_returnsImageJpeg() throws IOException {
+        assertThat(contentTypeDetector.detect(encode("jpg"))).isEqualTo("image/jpeg");
+    }
+
+    @Test
+    public void detect_whenGifProvided_returnsImageGif() throws IOException {
+        assertThat(contentTypeDetector.detect(encode("gif"))).isEqualTo("image/gif");
+    }
+
+    @Test
+    public void detect_whenTextProvided_fallsBackToTextPlain() throws IOException {
+        byte[] text = FileUtils.readFileToByteArray(new ClassPathResource("test-txt.txt").getFile());
+
+        assertThat(contentTypeDetector.detect(text)).isEqualTo("text/plain");
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB), format, output);
+        return output.toByteArray();
+    }
+}
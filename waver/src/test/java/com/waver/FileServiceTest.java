@@ -1,106 +1,158 @@
-package com.waver;
-
-import com.waver.configuration.AppConfiguration;
-import com.waver.model.file.FileAttachment;
-import com.waver.model.file.FileAttachmentRepository;
-import com.waver.services.FileService;
-import org.apache.commons.io.FileUtils;
-import org.junit.After;
-import org.junit.Before;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mockito;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.junit4.SpringRunner;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.Arrays;
-import java.util.Date;
-
-import static org.assertj.core.api.Assertions.assertThat;
-
-@RunWith(SpringRunner.class)
-@ActiveProfiles("test")
-public class FileServiceTest {
-
-    FileService fileService;
-
-    AppConfiguration appConfiguration;
-
-    @MockBean
-    FileAttachmentRepository fileAttachmentRepository;
-
-    @Before
-    public void init(){
-        appConfiguration = new AppConfiguration();
-        appConfiguration.setUploadPath("uploads-test");
-
-        fileService = new FileService(appConfiguration, fileAttachmentRepository);
-
-        new File(appConfiguration.getUploadPath()).mkdir();
-        new File(appConfiguration.getFullProfileImagesPath()).mkdir();
-        new File(appConfiguration.getFullAttachmentsPath()).mkdir();
-    }
-
-    @Test
-    public void detectType_whenPngFileProvided_returnsImagePng() throws IOException {
-        ClassPathResource resourceFile = new ClassPathResource("test-png.png");
-        byte[] fileArr = FileUtils.readFileToByteArray(resourceFile.getFile());
-        String fileType = fileService.detectType(fileArr);
-
-        assertThat(fileType).isEqualToIgnoringCase("image/png");
-    }
-
-    @Test
-    public void cleanupStorage_whenOldFileExist_removesFileFromStorage() throws IOException {
-        String fileName = "random-file";
-        String filePath = appConfiguration.getFullAttachmentsPath() + "/" + fileName;
-        File source = new ClassPathResource("profile.png").getFile();
-        File target = new File(filePath);
-        FileUtils.copyFile(source, target);
-
-        FileAttachment fileAttachment = new FileAttachment();
-        fileAttachment.setId(5);
-        fileAttachment.setName(fileName);
-
-        Mockito.when(fileAttachmentRepository.findByDateBeforeAndWaveIsNull(Mockito.any(Date.class)))
-                .thenReturn(Arrays.asList(fileAttachment));
-
-        fileService.cleanupStorage();
-        File storedImage = new File(filePath);
-
-        assertThat(storedImage.exists()).isFalse();
-    }
-
-    @Test
-    public void cleanupStorage_whenOldFileExist_removesFileAttachmentsFromDb() throws IOException {
-        String fileName = "random-file";
-        String filePath = appConfiguration.getFullAttachmentsPath() + "/" + fileName;
-        File source = new ClassPathResource("profile.png").getFile();
-        File target = new File(filePath);
-        FileUtils.copyFile(source, target);
-
-        FileAttachment fileAttachment = new FileAttachment();
-        fileAttachment.setId(5);
-        fileAttachment.setName(fileName);
-
-        Mockito.when(fileAttachmentRepository.findByDateBeforeAndWaveIsNull(Mockito.any(Date.class)))
-                .thenReturn(Arrays.asList(fileAttachment));
-
-        fileService.cleanupStorage();
-        Mockito.verify(fileAttachmentRepository).deleteById(5L);
-
-    }
-
-    @After
-    public void cleanup() throws IOException {
-        FileUtils.cleanDirectory(new File(appConfiguration.getFullProfileImagesPath()));
-        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
-    }
-
-
-}
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.exception.AttachmentTooLargeException;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.StoredBlobRepository;
+import com.waver.services.ContentTypeDetector;
+import com.waver.services.FileService;
+import com.waver.storage.LocalStorageBackend;
+import com.waver.storage.StoredObjectMetadataCache;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class FileServiceTest {
+
+    FileService fileService;
+
+    AppConfiguration appConfiguration;
+
+    @MockBean
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @MockBean
+    StoredBlobRepository storedBlobRepository;
+
+    @Before
+    public void init(){
+        appConfiguration = new AppConfiguration();
+        appConfiguration.setUploadPath("uploads-test");
+
+        LocalStorageBackend storageBackend = new LocalStorageBackend(Paths.get(appConfiguration.getUploadPath()));
+        fileService = new FileService(appConfiguration, fileAttachmentRepository, storedBlobRepository,
+                storageBackend, new ContentTypeDetector(), new StoredObjectMetadataCache(storageBackend, new ContentTypeDetector(), appConfiguration));
+
+        new File(appConfiguration.getUploadPath()).mkdir();
+        new File(appConfiguration.getFullProfileImagesPath()).mkdir();
+        new File(appConfiguration.getFullAttachmentsPath()).mkdir();
+    }
+
+    @Test
+    public void detectType_whenPngFileProvided_returnsImagePng() throws IOException {
+        ClassPathResource resourceFile = new ClassPathResource("test-png.png");
+        byte[] fileArr = FileUtils.readFileToByteArray(resourceFile.getFile());
+        String fileType = fileService.detectType(fileArr);
+
+        assertThat(fileType).isEqualToIgnoringCase("image/png");
+    }
+
+    @Test
+    public void saveAttachment_whenPngFileProvided_storesWholeFileAndDetectsImagePng() throws IOException {
+        byte[] fileArr = FileUtils.readFileToByteArray(new ClassPathResource("test-png.png").getFile());
+        Mockito.when(fileAttachmentRepository.save(Mockito.any(FileAttachment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileAttachment attachment = fileService.saveAttachment(new MockMultipartFile("test-png.png", fileArr), null);
+        File storedFile = new File(appConfiguration.getFullAttachmentsPath() + "/" + attachment.getName());
+
+        assertThat(attachment.getFileType()).isEqualToIgnoringCase("image/png");
+        assertThat(FileUtils.readFileToByteArray(storedFile)).isEqualTo(fileArr);
+    }
+
+    @Test
+    public void saveAttachment_whenFileExceedsMaxSize_throwsAndLeavesNoFile() throws IOException {
+        appConfiguration.setMaxAttachmentSize(1024);
+        byte[] fileArr = new byte[4096];
+
+        assertThatThrownBy(() -> fileService.saveAttachment(new MockMultipartFile("large-file", fileArr), null))
+                .isInstanceOf(AttachmentTooLargeException.class);
+        assertThat(new File(appConfiguration.getFullAttachmentsPath()).list()).isEmpty();
+    }
+
+    @Test
+    public void saveAttachment_whenPngFileProvided_createsVariantsSmallerThanOriginal() throws IOException {
+        byte[] fileArr = FileUtils.readFileToByteArray(new ClassPathResource("test-png.png").getFile());
+        Mockito.when(fileAttachmentRepository.save(Mockito.any(FileAttachment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileAttachment attachment = fileService.saveAttachment(new MockMultipartFile("test-png.png", fileArr), null);
+        BufferedImage variant = ImageIO.read(new File(appConfiguration.getFullAttachmentsPath() + "/" + attachment.getName() + "_256"));
+
+        assertThat(attachment.getVariants()).isEqualTo("64,256");
+        assertThat(Math.max(variant.getWidth(), variant.getHeight())).isEqualTo(256);
+        assertThat(new File(appConfiguration.getFullAttachmentsPath() + "/" + attachment.getName() + "_1024")).doesNotExist();
+    }
+
+    @Test
+    public void deleteAttachmentImage_whenVariantsExist_removesVariantsFromStorage() throws IOException {
+        byte[] fileArr = FileUtils.readFileToByteArray(new ClassPathResource("test-png.png").getFile());
+        Mockito.when(fileAttachmentRepository.save(Mockito.any(FileAttachment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        FileAttachment attachment = fileService.saveAttachment(new MockMultipartFile("test-png.png", fileArr), null);
+
+        fileService.deleteAttachmentImage(attachment.getName());
+
+        assertThat(new File(appConfiguration.getFullAttachmentsPath()).list()).isEmpty();
+    }
+
+    @Test
+    public void createImageVariants_whenFileIsNotAnImage_returnsNull() throws IOException {
+        File target = new File(appConfiguration.getFullAttachmentsPath() + "/text-file");
+        FileUtils.copyFile(new ClassPathResource("test-txt.txt").getFile(), target);
+
+        assertThat(fileService.createImageVariants(target.toPath(), "attachments/text-file")).isNull();
+    }
+
+    @Test
+    public void createImageVariants_whenImageIsLarge_createsVariantsOfRequestedSize() throws IOException {
+        File target = new File(appConfiguration.getFullAttachmentsPath() + "/large-image");
+        ImageIO.write(new BufferedImage(5000, 2000, BufferedImage.TYPE_INT_RGB), "png", target);
+
+        String variants = fileService.createImageVariants(target.toPath(), "attachments/large-image");
+        BufferedImage largest = ImageIO.read(new File(appConfiguration.getFullAttachmentsPath() + "/large-image_1024"));
+        BufferedImage smallest = ImageIO.read(new File(appConfiguration.getFullAttachmentsPath() + "/large-image_64"));
+
+        assertThat(variants).isEqualTo("64,256,1024");
+        assertThat(largest.getWidth()).isEqualTo(1024);
+        assertThat(smallest.getWidth()).isEqualTo(64);
+    }
+
+    @Test
+    public void createImageVariants_whenImageHasMorePixelsThanAllowed_returnsNull() throws IOException {
+        appConfiguration.setMaxVariantSourcePixels(1000);
+        File target = new File(appConfiguration.getFullAttachmentsPath() + "/too-many-pixels");
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", target);
+
+        assertThat(fileService.createImageVariants(target.toPath(), "attachments/too-many-pixels")).isNull();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullProfileImagesPath()));
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+    }
+
+
+}
@@ -4,6 +4,8 @@ import com.waver.configuration.AppConfiguration;
 import com.waver.model.TestUtil;
 import com.waver.model.file.FileAttachment;
 import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.model.file.FileAttachmentVM;
 import com.waver.model.user.UserRepository;
 import com.waver.services.UserService;
 import org.apache.tomcat.util.http.fileupload.FileUtils;
@@ -128,6 +130,84 @@ public class FileUploadControllerTest {
         assertThat(storedFile.getFileType()).isEqualTo("image/png");
     }
 
+    @Test
+    public void uploadFileAsync_withImageFromAuthorizedUser_receivePendingOrReadyAttachmentWithId(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<FileAttachment> response = uploadFileAsync(getRequestEntity(), FileAttachment.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getId()).isGreaterThan(0);
+        assertThat(response.getBody().getStatus()).isIn(FileAttachmentStatus.PENDING, FileAttachmentStatus.READY);
+    }
+
+    @Test
+    public void uploadFileAsync_withImageFromAuthorizedUser_imageSavedToFolder() throws InterruptedException {
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        long id = uploadFileAsync(getRequestEntity(), FileAttachment.class).getBody().getId();
+        FileAttachmentVM processed = awaitProcessing(id);
+        File storedImage = new File(appConfiguration.getFullAttachmentsPath() + "/" + processed.getName());
+
+        assertThat(storedImage.exists()).isTrue();
+    }
+
+    @Test
+    public void getUploadStatus_afterAsyncUpload_eventuallyReceiveReadyAttachmentWithFileType() throws InterruptedException {
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        long id = uploadFileAsync(getRequestEntity(), FileAttachment.class).getBody().getId();
+        FileAttachmentVM status = awaitProcessing(id);
+
+        assertThat(status.getStatus()).isEqualTo(FileAttachmentStatus.READY);
+        assertThat(status.getFileType()).isEqualTo("image/png");
+        assertThat(status.getVariants()).containsOnlyKeys(64);
+    }
+
+    @Test
+    public void uploadFile_withImageFromAuthorizedUser_receiveFileAttachmentWithVariantSizes(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<FileAttachment> response = uploadFile(getRequestEntity(), FileAttachment.class);
+
+        assertThat(response.getBody().getVariants()).isEqualTo("64");
+    }
+
+    @Test
+    public void getUploadStatus_fromUnauthorizedUser_receiveUnauthorized(){
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_WAVES_UPLOAD + "/1", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void getUploadStatus_forUnknownAttachment_receiveNotFound(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_WAVES_UPLOAD + "/123456", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void getUploadStatus_forAttachmentUploadedByAnotherUser_receiveNotFound(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+        long id = uploadFileAsync(getRequestEntity(), FileAttachment.class).getBody().getId();
+
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user2");
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_WAVES_UPLOAD + "/" + id, Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     private void authenticate(String username) {
         testRestTemplate.
                 getRestTemplate().
@@ -147,4 +227,21 @@ public class FileUploadControllerTest {
     public <T> ResponseEntity<T> uploadFile(HttpEntity<?> requestEntity, Class<T> responseType){
         return testRestTemplate.exchange(API_1_0_WAVES_UPLOAD, HttpMethod.POST, requestEntity, responseType);
     }
+
+    public <T> ResponseEntity<T> uploadFileAsync(HttpEntity<?> requestEntity, Class<T> responseType){
+        return testRestTemplate.exchange(API_1_0_WAVES_UPLOAD + "?async=true", HttpMethod.POST, requestEntity, responseType);
+    }
+
+    private FileAttachmentVM awaitProcessing(long id) throws InterruptedException {
+        FileAttachmentVM status = getUploadStatus(id).getBody();
+        for (int attempt = 0; attempt < 50 && status.getStatus() == FileAttachmentStatus.PENDING; attempt++){
+            Thread.sleep(100);
+            status = getUploadStatus(id).getBody();
+        }
+        return status;
+    }
+
+    private ResponseEntity<FileAttachmentVM> getUploadStatus(long id){
+        return testRestTemplate.getForEntity(API_1_0_WAVES_UPLOAD + "/" + id, FileAttachmentVM.class);
+    }
 }
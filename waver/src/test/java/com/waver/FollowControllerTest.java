@@ -0,0 +1,341 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.TestUtil;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.follow.Follow;
+import com.waver.model.follow.FollowRepository;
+import com.waver.model.user.User;
+import com.waver.model.user.UserRepository;
+import com.waver.model.user.viewmodel.UserViewModel;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveRepository;
+import com.waver.model.wave.WaveViewModel;
+import com.waver.services.FollowService;
+import com.waver.services.HomeTimelineService;
+import com.waver.services.UserService;
+import com.waver.services.WaveService;
+import com.waver.shared.CursorSlice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Date;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class FollowControllerTest {
+
+    private static final String API_1_0_USERS = "/api/1.0/users";
+
+    private static final String API_1_0_HOME = "/api/1.0/waves/home";
+
+    @Autowired
+    TestRestTemplate testRestTemplate;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    WaveService waveService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    WaveRepository waveRepository;
+
+    @Autowired
+    FollowRepository followRepository;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    FollowService followService;
+
+    @Autowired
+    HomeTimelineService homeTimelineService;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @Before
+    public void cleanup(){
+        cleanupDatabase();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @After
+    public void cleanupDatabase(){
+        appConfiguration.setFollowerCountCacheTtlSeconds(60);
+        followRepository.deleteAll();
+        fileAttachmentRepository.deleteAll();
+        waveRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void follow_whenUserIsUnauthorized_receiveUnauthorized(){
+        userService.save(TestUtil.createValidUser("user1"));
+
+        ResponseEntity<Object> response = follow("user1", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void follow_whenUserIsAuthorized_receiveOk(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = follow("user2", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void follow_whenUserIsAuthorized_followSavedToDatabase(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+
+        follow("user2", Object.class);
+
+        assertThat(followRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void follow_whenAlreadyFollowing_keepsSingleFollow(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+
+        follow("user2", Object.class);
+        ResponseEntity<Object> response = follow("user2", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(followRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void follow_whenUserFollowsThemselves_receiveBadRequest(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = follow("user1", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void follow_whenUserDoesNotExist_receiveNotFound(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<Object> response = follow("unknown-user", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void unfollow_whenFollowing_followRemovedFromDatabase(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+        follow("user2", Object.class);
+
+        ResponseEntity<Object> response = testRestTemplate.exchange(
+                API_1_0_USERS + "/user2/follow", HttpMethod.DELETE, null, Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(followRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void getFollowerCount_whenFollowWasSavedByAnotherNode_isCountedAgainAfterTtl() throws InterruptedException {
+        appConfiguration.setFollowerCountCacheTtlSeconds(0);
+        userService.save(TestUtil.createValidUser("user1"));
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        User user3 = userService.save(TestUtil.createValidUser("user3"));
+        authenticate("user1");
+        follow("user2", Object.class);
+
+        Follow follow = new Follow();
+        follow.setFollower(user3);
+        follow.setFollowee(user2);
+        follow.setTimestamp(new Date());
+        followRepository.save(follow);
+        Thread.sleep(10);
+
+        assertThat(followService.getFollowerCount(user2.getId())).isEqualTo(2);
+    }
+
+    @Test
+    public void getFollowers_whenUserHasFollowers_receivePageOfFollowers(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        userService.save(TestUtil.createValidUser("user3"));
+        authenticate("user1");
+        follow("user3", Object.class);
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user2");
+        follow("user3", Object.class);
+
+        ResponseEntity<TestPage<UserViewModel>> response = testRestTemplate.exchange(API_1_0_USERS + "/user3/followers",
+                HttpMethod.GET, null, new ParameterizedTypeReference<TestPage<UserViewModel>>() {});
+
+        assertThat(response.getBody().getTotalElements()).isEqualTo(2);
+        assertThat(response.getBody().getContent().stream().map(UserViewModel::getUsername).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder("user1", "user2");
+    }
+
+    @Test
+    public void getFollowing_whenUserFollowsOthers_receivePageOfFollowees(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+        follow("user2", Object.class);
+
+        ResponseEntity<TestPage<UserViewModel>> response = testRestTemplate.exchange(API_1_0_USERS + "/user1/following",
+                HttpMethod.GET, null, new ParameterizedTypeReference<TestPage<UserViewModel>>() {});
+
+        assertThat(response.getBody().getContent().get(0).getUsername()).isEqualTo("user2");
+    }
+
+    @Test
+    public void getHomeTimeline_whenUserIsUnauthorized_receiveUnauthorized(){
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_HOME, Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void getHomeTimeline_whenFollowingUser_receiveWavesOfFolloweeAndOwn(){
+        User user1 = userService.save(TestUtil.createValidUser("user1"));
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        User user3 = userService.save(TestUtil.createValidUser("user3"));
+        authenticate("user1");
+        follow("user2", Object.class);
+        Wave own = waveService.save(user1, TestUtil.createValidWave());
+        Wave followed = waveService.save(user2, TestUtil.createValidWave());
+        waveService.save(user3, TestUtil.createValidWave());
+
+        CursorSlice<WaveViewModel> timeline = getHomeTimeline("");
+
+        assertThat(timeline.getContent().stream().map(WaveViewModel::getId).collect(Collectors.toList()))
+                .containsExactly(followed.getId(), own.getId());
+    }
+
+    @Test
+    public void getHomeTimeline_whenTimelineAlreadyRead_receivesWavesPostedAfterwards() throws InterruptedException {
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        follow("user2", Object.class);
+        getHomeTimeline("");
+
+        Wave followed = waveService.save(user2, TestUtil.createValidWave());
+        awaitFanOut();
+        CursorSlice<WaveViewModel> timeline = getHomeTimeline("");
+
+        assertThat(timeline.getContent().get(0).getId()).isEqualTo(followed.getId());
+    }
+
+    @Test
+    public void getHomeTimeline_whenUnfollowed_doesNotReceiveWavesOfFormerFollowee(){
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        follow("user2", Object.class);
+        waveService.save(user2, TestUtil.createValidWave());
+        getHomeTimeline("");
+
+        testRestTemplate.exchange(API_1_0_USERS + "/user2/follow", HttpMethod.DELETE, null, Object.class);
+        CursorSlice<WaveViewModel> timeline = getHomeTimeline("");
+
+        assertThat(timeline.getContent()).isEmpty();
+    }
+
+    @Test
+    public void getHomeTimeline_whenMoreWavesThanPageSize_receiveCursorToNextPage(){
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        follow("user2", Object.class);
+        for (int i = 0; i < 5; i++){
+            waveService.save(user2, TestUtil.createValidWave());
+        }
+
+        CursorSlice<WaveViewModel> firstPage = getHomeTimeline("?size=3");
+        CursorSlice<WaveViewModel> secondPage = getHomeTimeline("?size=3&before=" + firstPage.getNextCursor());
+
+        assertThat(firstPage.isLast()).isFalse();
+        assertThat(secondPage.getContent().size()).isEqualTo(2);
+        assertThat(secondPage.isLast()).isTrue();
+    }
+
+    @Test
+    public void getHomeTimeline_whenFolloweeImportsWaves_receivesImportedWavesAfterFanOut() throws InterruptedException {
+        userService.save(TestUtil.createValidUser("user2"));
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        follow("user2", Object.class);
+        getHomeTimeline("");
+
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user2");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        testRestTemplate.postForEntity("/api/1.0/waves/bulk", new HttpEntity<>(
+                "[{\"content\":\"first imported wave\"},{\"content\":\"second imported wave\"}]", headers), Object.class);
+        awaitFanOut();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user1");
+        CursorSlice<WaveViewModel> timeline = getHomeTimeline("");
+
+        assertThat(timeline.getContent().stream().map(WaveViewModel::getContent).collect(Collectors.toList()))
+                .containsExactly("second imported wave", "first imported wave");
+    }
+
+    private void awaitFanOut() throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && homeTimelineService.getPendingFanOutCount() > 0; attempt++){
+            Thread.sleep(50);
+        }
+    }
+
+    private CursorSlice<WaveViewModel> getHomeTimeline(String query) {
+        return testRestTemplate.exchange(API_1_0_HOME + query, HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorSlice<WaveViewModel>>() {}).getBody();
+    }
+
+    private <T> ResponseEntity<T> follow(String username, Class<T> responseType){
+        return testRestTemplate.postForEntity(API_1_0_USERS + "/" + username + "/follow", null, responseType);
+    }
+
+    private void authenticate(String username) {
+        testRestTemplate.
+                getRestTemplate().
+                getInterceptors().
+                add(new BasicAuthenticationInterceptor(username,"P4ssword"));
+    }
+}
@@ -0,0 +1,238 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.TestUtil;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.follow.Follow;
+import com.waver.model.follow.FollowRepository;
+import com.waver.model.user.User;
+import com.waver.model.user.UserRepository;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveRepository;
+import com.waver.services.FollowService;
+import com.waver.services.HomeTimelineService;
+import com.waver.services.WaveService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class HomeTimelineLoadTest {
+
+    private static final int USER_COUNT = 200;
+
+    private static final int FOLLOWS_PER_USER = 15;
+
+    private static final int WAVE_COUNT = 1200;
+
+    private static final int FAN_OUT_LIMIT = 40;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    HomeTimelineService homeTimelineService;
+
+    @Autowired
+    FollowService followService;
+
+    @Autowired
+    WaveService waveService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    WaveRepository waveRepository;
+
+    @Autowired
+    FollowRepository followRepository;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    private final Random random = new Random(42);
+
+    private List<User> users;
+
+    @Before
+    public void init(){
+        cleanupDatabase();
+        appConfiguration.setTimelineFanOutFollowerLimit(FAN_OUT_LIMIT);
+        users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++){
+            users.add(userRepository.save(TestUtil.createValidUser("load-user" + i)));
+        }
+        // Zipf-like popularity: a few accounts collect most followers and post most waves.
+        List<Follow> follows = new ArrayList<>();
+        for (User follower : users){
+            Set<User> followees = new HashSet<>();
+            while (followees.size() < FOLLOWS_PER_USER){
+                User followee = skewedUser();
+                if (followee.getId() != follower.getId()){
+                    followees.add(followee);
+                }
+            }
+            for (User followee : followees){
+                Follow follow = new Follow();
+                follow.setFollower(follower);
+                follow.setFollowee(followee);
+                follows.add(follow);
+            }
+        }
+        followRepository.saveAll(follows);
+    }
+
+    @After
+    public void cleanupDatabase(){
+        appConfiguration.setTimelineFanOutFollowerLimit(10000);
+        followRepository.deleteAllInBatch();
+        fileAttachmentRepository.deleteAll();
+        waveRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void homeTimeline_whenFollowersAreSkewed_matchesPullModelForEveryUser() throws Exception {
+        long exemptAccounts = users.stream().filter(user -> followService.isFanOutExempt(user.getId())).count();
+        assertThat(exemptAccounts).isGreaterThan(0).isLessThan(USER_COUNT / 10);
+
+        // Half of the timelines are materialized before the writes, the rest are built on first read.
+        for (int i = 0; i < USER_COUNT; i += 2){
+            homeTimelineService.getHomeTimeline(users.get(i), Long.MAX_VALUE, PAGE_SIZE);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        long writeStartedAt = System.nanoTime();
+        for (int i = 0; i < WAVE_COUNT; i++){
+            User author = skewedUser();
+            futures.add(executor.submit(() -> waveService.save(author, TestUtil.createValidWave())));
+            if (i % 4 == 0){
+                User reader = users.get(random.nextInt(USER_COUNT));
+                futures.add(executor.submit(() -> homeTimelineService.getHomeTimeline(reader, Long.MAX_VALUE, PAGE_SIZE)));
+            }
+        }
+        for (Future<?> future : futures){
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        awaitFanOut();
+        long writeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStartedAt);
+
+        long readStartedAt = System.nanoTime();
+        for (User user : users){
+            List<Long> expected = pullTimeline(user, 3 * PAGE_SIZE);
+            assertThat(readPages(user, 3)).as("home timeline of " + user.getUsername()).isEqualTo(expected);
+        }
+        long readMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - readStartedAt);
+        System.out.println("Home timeline load: " + WAVE_COUNT + " waves in " + writeMillis + " ms, "
+                + USER_COUNT * 3 + " pages in " + readMillis + " ms, "
+                + homeTimelineService.getFanOutWriteCount() + " fan-out writes");
+    }
+
+    @Test
+    public void homeTimeline_whenExemptAccountPosts_skipsFanOutToFollowers() throws InterruptedException {
+        User celebrity = users.stream()
+                .filter(user -> followService.isFanOutExempt(user.getId()))
+                .findFirst().get();
+        List<Long> followerIds = followRepository.findFollowerIds(celebrity.getId());
+        for (Long followerId : followerIds){
+            homeTimelineService.getHomeTimeline(userRepository.findById(followerId).get(), Long.MAX_VALUE, PAGE_SIZE);
+        }
+        awaitFanOut();
+        long fanOutWrites = homeTimelineService.getFanOutWriteCount();
+
+        Wave wave = waveService.save(celebrity, TestUtil.createValidWave());
+        awaitFanOut();
+
+        assertThat(homeTimelineService.getFanOutWriteCount() - fanOutWrites).isLessThanOrEqualTo(1);
+        User follower = userRepository.findById(followerIds.get(0)).get();
+        assertThat(homeTimelineService.getHomeTimeline(follower, Long.MAX_VALUE, PAGE_SIZE).getContent().get(0).getId())
+                .isEqualTo(wave.getId());
+    }
+
+    @Test
+    public void homeTimeline_whenBufferOverflows_pagesPastItFromDatabase() throws InterruptedException {
+        appConfiguration.setHomeTimelineCapacity(10);
+        try {
+            User reader = users.get(USER_COUNT - 1);
+            homeTimelineService.getHomeTimeline(reader, Long.MAX_VALUE, PAGE_SIZE);
+            for (int i = 0; i < 200; i++){
+                waveService.save(skewedUser(), TestUtil.createValidWave());
+            }
+            awaitFanOut();
+
+            assertThat(readPages(reader, 3)).isEqualTo(pullTimeline(reader, 3 * PAGE_SIZE));
+        } finally {
+            appConfiguration.setHomeTimelineCapacity(800);
+        }
+    }
+
+    private void awaitFanOut() throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && homeTimelineService.getPendingFanOutCount() > 0; attempt++){
+            Thread.sleep(50);
+        }
+    }
+
+    private List<Long> readPages(User user, int pages) {
+        List<Long> ids = new ArrayList<>();
+        long before = Long.MAX_VALUE;
+        for (int i = 0; i < pages; i++){
+            Slice<Wave> page = homeTimelineService.getHomeTimeline(user, before, PAGE_SIZE);
+            page.getContent().forEach(wave -> ids.add(wave.getId()));
+            if (!page.hasNext()){
+                break;
+            }
+            before = page.getContent().get(page.getNumberOfElements() - 1).getId();
+        }
+        return ids;
+    }
+
+    private List<Long> pullTimeline(User user, int limit) {
+        Set<Long> sources = new HashSet<>(followRepository.findFolloweeIds(user.getId()));
+        sources.add(user.getId());
+        return waveRepository.findIdsByUserIdInAndIdLessThan(sources, Long.MAX_VALUE, PageRequest.of(0, limit))
+                .stream().collect(Collectors.toList());
+    }
+
+    private User skewedUser() {
+        double total = 0;
+        for (int rank = 1; rank <= USER_COUNT; rank++){
+            total += 1.0 / rank;
+        }
+        double target = random.nextDouble() * total;
+        for (int rank = 1; rank <= USER_COUNT; rank++){
+            target -= 1.0 / rank;
+            if (target <= 0){
+                return users.get(rank - 1);
+            }
+        }
+        return users.get(USER_COUNT - 1);
+    }
+}
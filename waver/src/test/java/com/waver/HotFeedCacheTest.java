@@ -0,0 +1,187 @@
+package com.waver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.waver.configuration.AppConfiguration;
+import com.waver.exception.CustomNotFoundException;
+import com.waver.model.file.AttachmentStatusChangedEvent;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.services.HotFeedCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HotFeedCacheTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "id"));
+
+    HotFeedCache hotFeedCache;
+
+    AppConfiguration appConfiguration;
+
+    @Before
+    public void init(){
+        appConfiguration = new AppConfiguration();
+        hotFeedCache = new HotFeedCache(new ObjectMapper(), appConfiguration);
+    }
+
+    @Test
+    public void get_whenCalledTwice_loadsOnce(){
+        AtomicInteger loads = new AtomicInteger();
+
+        hotFeedCache.get(null, FIRST_PAGE, () -> loads.incrementAndGet());
+        byte[] body = hotFeedCache.get(null, FIRST_PAGE, () -> loads.incrementAndGet());
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(new String(body)).isEqualTo("1");
+    }
+
+    @Test
+    public void get_whenManyCallersMissAtOnce_loadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++){
+            results.add(executor.submit(() -> hotFeedCache.get(null, FIRST_PAGE, () -> {
+                loads.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Collections.singletonList("wave");
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<byte[]> result : results){
+            assertThat(new String(result.get())).isEqualTo("[\"wave\"]");
+        }
+        executor.shutdown();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_whenLoaderThrows_exceptionPropagatesAndNothingIsCached(){
+        assertThatThrownBy(() -> hotFeedCache.get("unknown", FIRST_PAGE, () -> {
+            throw new CustomNotFoundException("not found");
+        })).isInstanceOf(CustomNotFoundException.class);
+
+        assertThat(hotFeedCache.getCachedBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_whenFeedsAreOnlyRead_keepsNoVersions(){
+        for (int i = 0; i < 100; i++){
+            String username = "unknown" + i;
+            assertThatThrownBy(() -> hotFeedCache.get(username, FIRST_PAGE, () -> {
+                throw new CustomNotFoundException("not found");
+            })).isInstanceOf(CustomNotFoundException.class);
+            hotFeedCache.get("user" + i, FIRST_PAGE, () -> "page");
+        }
+
+        assertThat(hotFeedCache.getVersionedFeedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_whenPageOfWrittenFeedIsEvicted_dropsItsVersion(){
+        hotFeedCache.invalidate("user1");
+        appConfiguration.setHotFeedCacheMaxSize(1);
+        hotFeedCache.get("user1", FIRST_PAGE, () -> "page");
+
+        hotFeedCache.get("user2", FIRST_PAGE, () -> "page");
+
+        assertThat(hotFeedCache.getVersionedFeedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_whenUserPosts_dropsGlobalAndOwnFeedOnly(){
+        AtomicInteger loads = new AtomicInteger();
+        hotFeedCache.get(null, FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user2", FIRST_PAGE, loads::incrementAndGet);
+
+        hotFeedCache.invalidate("user1");
+        hotFeedCache.get(null, FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user2", FIRST_PAGE, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void onAttachmentStatusChanged_whenAttachmentIsLinkedToWave_dropsGlobalAndOwnFeed(){
+        AtomicInteger loads = new AtomicInteger();
+        hotFeedCache.get(null, FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+
+        hotFeedCache.onAttachmentStatusChanged(new AttachmentStatusChangedEvent(1, 10, "user1", FileAttachmentStatus.READY));
+        hotFeedCache.get(null, FIRST_PAGE, loads::incrementAndGet);
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void get_whenFeedInvalidatedDuringLoad_doesNotCacheStalePage(){
+        AtomicInteger loads = new AtomicInteger();
+
+        hotFeedCache.get("user1", FIRST_PAGE, () -> {
+            hotFeedCache.invalidate("user1");
+            return loads.incrementAndGet();
+        });
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_whenVersionOfLoadingFeedIsDropped_doesNotCacheStalePage(){
+        appConfiguration.setHotFeedCacheMaxSize(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        hotFeedCache.get("user1", FIRST_PAGE, () -> {
+            hotFeedCache.invalidate("user1");
+            hotFeedCache.get("user1", PageRequest.of(0, 10), () -> "page");
+            hotFeedCache.get("user2", FIRST_PAGE, () -> "page");
+            return loads.incrementAndGet();
+        });
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_whenMaxBytesExceeded_evictsLeastRecentlyUsedPage(){
+        appConfiguration.setHotFeedCacheMaxBytes(10);
+        AtomicInteger loads = new AtomicInteger();
+        hotFeedCache.get("user1", FIRST_PAGE, () -> "12345");
+        hotFeedCache.get("user2", FIRST_PAGE, () -> "12345");
+
+        hotFeedCache.get("user1", FIRST_PAGE, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(hotFeedCache.getCachedBytes()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void isCacheable_whenPageIsNotFirst_returnsFalse(){
+        assertThat(hotFeedCache.isCacheable(PageRequest.of(1, 5))).isFalse();
+    }
+}
@@ -0,0 +1,183 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ImageControllerTest {
+
+    private static final String IMAGE_NAME = "large-image.png";
+
+    @Autowired
+    TestRestTemplate testRestTemplate;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    private byte[] content;
+
+    @Before
+    public void init() throws IOException {
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        content = new byte[256 * 1024];
+        new Random(42).nextBytes(content);
+        FileUtils.writeByteArrayToFile(new File(appConfiguration.getFullAttachmentsPath() + "/" + IMAGE_NAME), content);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+    }
+
+    @Test
+    public void getImage_whenFileIsLarge_receiveWholeFile() {
+        ResponseEntity<byte[]> response = getImage(new HttpHeaders());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(content);
+    }
+
+    @Test
+    public void getImage_whenFileExists_receiveValidators() {
+        ResponseEntity<byte[]> response = getImage(new HttpHeaders());
+
+        assertThat(response.getHeaders().getETag()).startsWith("\"");
+        assertThat(response.getHeaders().getLastModified()).isGreaterThan(0);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    public void getImage_withMatchingEtag_receiveNotModified() {
+        String etag = getImage(new HttpHeaders()).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    public void getImage_withIfModifiedSinceAfterLastModified_receiveNotModified() {
+        long lastModified = getImage(new HttpHeaders()).getHeaders().getLastModified();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfModifiedSince(lastModified);
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void getImage_withRange_receivePartialContent() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=100000-199999");
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100000-199999/" + content.length);
+        assertThat(response.getBody()).isEqualTo(Arrays.copyOfRange(content, 100000, 200000));
+    }
+
+    @Test
+    public void getImage_withSuffixRange_receiveLastBytes() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=-10");
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getBody()).isEqualTo(Arrays.copyOfRange(content, content.length - 10, content.length));
+    }
+
+    @Test
+    public void getImage_withRangeBeyondFile_receiveRangeNotSatisfiable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=" + content.length + "-");
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + content.length);
+    }
+
+    @Test
+    public void getImage_withStaleIfRange_receiveWholeFile() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=0-9");
+        headers.set(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(content.length);
+    }
+
+    @Test
+    public void getImage_whenFileRemovedAfterMetadataCached_receiveNotFound() {
+        getImage(new HttpHeaders());
+        new File(appConfiguration.getFullAttachmentsPath() + "/" + IMAGE_NAME).delete();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=0-9");
+
+        ResponseEntity<byte[]> response = getImage(headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void getImage_whenStoredNameHasNoExtension_receiveDetectedContentType() throws IOException {
+        byte[] png = Arrays.copyOf(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, 64);
+        FileUtils.writeByteArrayToFile(new File(appConfiguration.getFullAttachmentsPath() + "/stored-png"), png);
+
+        ResponseEntity<byte[]> response = getImage("stored-png", new HttpHeaders());
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+    }
+
+    @Test
+    public void getImage_whenStoredFileIsHtml_receiveOctetStream() throws IOException {
+        FileUtils.writeStringToFile(new File(appConfiguration.getFullAttachmentsPath() + "/stored-html"),
+                "<html><body><script>alert(1)</script></body></html>", StandardCharsets.UTF_8);
+
+        ResponseEntity<byte[]> response = getImage("stored-html", new HttpHeaders());
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private ResponseEntity<byte[]> getImage(HttpHeaders headers) {
+        return getImage(IMAGE_NAME, headers);
+    }
+
+    private ResponseEntity<byte[]> getImage(String name, HttpHeaders headers) {
+        String path = "/images/" + appConfiguration.getAttachmentsFolder() + "/" + name;
+        return testRestTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
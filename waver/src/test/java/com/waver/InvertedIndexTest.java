@@ -0,0 +1,122 @@
+package com.waver;
+
+import com.waver.shared.InvertedIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvertedIndexTest {
+
+    InvertedIndex index;
+
+    @Before
+    public void init(){
+        index = new InvertedIndex();
+    }
+
+    @Test
+    public void search_whenTermMatches_returnsIdsNewestFirst(){
+        index.add(1, "user1", "The quick brown fox");
+        index.add(2, "user1", "A lazy dog");
+        index.add(3, "user2", "Another fox appears");
+
+        assertThat(index.search("fox", null, Long.MAX_VALUE, 10)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    public void search_whenCaseAndPunctuationDiffer_stillMatches(){
+        index.add(1, "user1", "Hello, WORLD! How are you?");
+
+        assertThat(index.search("world", null, Long.MAX_VALUE, 10)).containsExactly(1L);
+        assertThat(index.search("HELLO how", null, Long.MAX_VALUE, 10)).containsExactly(1L);
+    }
+
+    @Test
+    public void search_whenSeveralTerms_returnsDocumentsContainingAll(){
+        index.add(1, "user1", "red apples and green pears");
+        index.add(2, "user1", "red cars");
+        index.add(3, "user1", "green apples");
+
+        assertThat(index.search("apples green", null, Long.MAX_VALUE, 10)).containsExactly(3L, 1L);
+        assertThat(index.search("apples bananas", null, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    public void search_whenPhraseQuery_matchesOnlyConsecutiveTerms(){
+        index.add(1, "user1", "new york is big");
+        index.add(2, "user1", "york is new");
+        index.add(3, "user1", "I love New-York");
+
+        assertThat(index.search("\"new york\"", null, Long.MAX_VALUE, 10)).containsExactly(3L, 1L);
+        assertThat(index.search("\"new york\" love", null, Long.MAX_VALUE, 10)).containsExactly(3L);
+    }
+
+    @Test
+    public void search_whenUsernameGiven_returnsOnlyWavesOfThatUser(){
+        index.add(1, "user1", "shared topic");
+        index.add(2, "user2", "shared topic");
+        index.add(3, "user1", "shared topic");
+
+        assertThat(index.search("topic", "user1", Long.MAX_VALUE, 10)).containsExactly(3L, 1L);
+        assertThat(index.search("topic", "unknown", Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    public void search_withBeforeAndLimit_pagesThroughResults(){
+        for (long id = 1; id <= 10; id++){
+            index.add(id, "user1", "wave number " + id);
+        }
+
+        List<Long> firstPage = index.search("wave", null, Long.MAX_VALUE, 4);
+        List<Long> secondPage = index.search("wave", null, firstPage.get(firstPage.size() - 1), 4);
+
+        assertThat(firstPage).containsExactly(10L, 9L, 8L, 7L);
+        assertThat(secondPage).containsExactly(6L, 5L, 4L, 3L);
+    }
+
+    @Test
+    public void add_whenIdsArriveOutOfOrder_keepsRecencyOrderAndPositions(){
+        index.add(5, "user1", "alpha beta");
+        index.add(2, "user1", "beta alpha");
+        index.add(9, "user1", "alpha beta gamma");
+        index.add(7, "user1", "gamma alpha beta");
+
+        assertThat(index.search("alpha", null, Long.MAX_VALUE, 10)).containsExactly(9L, 7L, 5L, 2L);
+        assertThat(index.search("\"alpha beta\"", null, Long.MAX_VALUE, 10)).containsExactly(9L, 7L, 5L);
+    }
+
+    @Test
+    public void add_whenDocumentAddedTwice_indexesItOnce(){
+        index.add(1, "user1", "repeated document");
+        index.add(1, "user1", "repeated document");
+
+        assertThat(index.search("repeated", null, Long.MAX_VALUE, 10)).containsExactly(1L);
+        assertThat(index.getDocumentCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void remove_whenManyDocumentsRemoved_compactsAndKeepsRemainingResults(){
+        LongStream.rangeClosed(1, 3000).forEach(id -> index.add(id, "user" + (id % 3), "bulk content " + (id % 2 == 0 ? "even" : "odd")));
+
+        LongStream.rangeClosed(1, 2000).forEach(id -> index.remove(id, "user" + (id % 3)));
+
+        assertThat(index.getDocumentCount()).isEqualTo(1000);
+        List<Long> expected = LongStream.rangeClosed(2001, 3000).boxed()
+                .filter(id -> id % 2 == 0)
+                .sorted((a, b) -> Long.compare(b, a))
+                .collect(Collectors.toList());
+        assertThat(index.search("even", null, Long.MAX_VALUE, 1000)).isEqualTo(expected);
+    }
+
+    @Test
+    public void search_whenQueryHasNoTerms_returnsEmpty(){
+        index.add(1, "user1", "some content");
+
+        assertThat(index.search(" !? \"\" ", null, Long.MAX_VALUE, 10)).isEmpty();
+    }
+}
@@ -1,173 +1,323 @@
-package com.waver;
-
-import com.waver.error.ApiError;
-import com.waver.model.TestUtil;
-import com.waver.model.user.User;
-import com.waver.model.user.UserRepository;
-import com.waver.services.UserService;
-import org.junit.Before;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.web.client.TestRestTemplate;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.support.BasicAuthenticationInterceptor;
-import org.springframework.test.context.ActiveProfiles;
-import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.List;
-import java.util.Map;
-
-import static org.assertj.core.api.Assertions.assertThat;
-
-@RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@ActiveProfiles("test")
-public class LoginControllerTest {
-
-    private static final String API_1_0_LOGIN = "/api/1.0/login";
-
-    @Autowired
-    TestRestTemplate testRestTemplate;
-
-    @Autowired
-    UserRepository userRepository;
-
-    @Autowired
-    UserService userService;
-
-    @Before
-    public void cleanUp(){
-        userRepository.deleteAll();
-        RestTemplate restTemplate = testRestTemplate.getRestTemplate();
-        List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
-        interceptors.clear();
-    }
-
-    @Test
-    public void postLogin_withoutUserCredentials_receiveUnautorized(){
-        ResponseEntity<Object> response = login(Object.class);
-
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
-    }
-
-    @Test
-    public void postLogin_withIncorrectUserCredentials_receiveUnautorized(){
-        authenticate();
-        ResponseEntity<Object> response = login(Object.class);
-
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
-    }
-
-    @Test
-    public void postLogin_withoutUserCredentials_receiveApiError(){
-        ResponseEntity<ApiError> response = login(ApiError.class);
-
-        assertThat(response.getBody().getUrl()).isEqualTo(API_1_0_LOGIN);
-    }
-
-    @Test
-    public void postLogin_withoutUserCredentials_receiveApiErrorWithoutValidationErrors(){
-        ResponseEntity<String> response = login(String.class);
-
-        assertThat(response.getBody().contains("validationErrors")).isFalse();
-    }
-
-    @Test
-    public void postLogin_withoutUserCredentials_receiveUnautorizeWithoutWWWAuthenticationHeader(){
-        authenticate();
-        ResponseEntity<String> response = login(String.class);
-
-        assertThat(response.getHeaders().containsKey("WWW-Authenticate")).isFalse();
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_receiveOK(){
-        userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Object> response = login(Object.class);
-
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_receiveLoggedUserId(){
-        User userInDB = userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
-        Map<String, Object> body = response.getBody();
-        Integer id = (Integer) body.get("id");
-
-        assertThat(id).isEqualTo(userInDB.getId());
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_receiveLoggedUsersImage(){
-        User userInDB = userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
-        Map<String, Object> body = response.getBody();
-        String image = (String) body.get("image");
-
-        assertThat(image).isEqualTo(userInDB.getImage());
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_receiveLoggedUsersDisplayName(){
-        User userInDB = userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
-        Map<String, Object> body = response.getBody();
-        String displayName = (String) body.get("displayName");
-
-        assertThat(displayName).isEqualTo(userInDB.getDisplayName());
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_receiveLoggedUsersUsername(){
-        User userInDB = userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
-        Map<String, Object> body = response.getBody();
-        String username = (String) body.get("username");
-
-        assertThat(username).isEqualTo(userInDB.getUsername());
-    }
-
-    @Test
-    public void postLogin_withValidUserCredentials_notReceiveLoggedUsersPassword(){
-        User userInDB = userService.save(TestUtil.createValidUser());
-
-        authenticate();
-        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
-        Map<String, Object> body = response.getBody();
-
-        assertThat(body.containsKey("password")).isFalse();
-    }
-
-    private void authenticate() {
-        testRestTemplate.
-                getRestTemplate().
-                getInterceptors().
-                add(new BasicAuthenticationInterceptor("test-user","P4ssword"));
-    }
-
-    public <T> ResponseEntity<T> login(Class<T> responseType){
-        return testRestTemplate.postForEntity(API_1_0_LOGIN, null, responseType);
-    }
-
-    public <T> ResponseEntity<T> login(ParameterizedTypeReference<T> responseType){
-        return testRestTemplate.exchange(API_1_0_LOGIN, HttpMethod.POST,null, responseType);
-    }
-}
+package com.waver;
+
+import com.waver.configuration.AuthenticationCache;
+import com.waver.error.ApiError;
+import com.waver.model.TestUtil;
+import com.waver.model.user.User;
+import com.waver.model.user.UserRepository;
+import com.waver.model.user.viewmodel.UserUpdateViewModel;
+import com.waver.services.UserService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class LoginControllerTest {
+
+    private static final String API_1_0_LOGIN = "/api/1.0/login";
+
+    @Autowired
+    TestRestTemplate testRestTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    AuthenticationCache authenticationCache;
+
+    @Before
+    public void cleanUp(){
+        userRepository.deleteAll();
+        RestTemplate restTemplate = testRestTemplate.getRestTemplate();
+        List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
+        interceptors.clear();
+    }
+
+    @Test
+    public void postLogin_withoutUserCredentials_receiveUnautorized(){
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void postLogin_withIncorrectUserCredentials_receiveUnautorized(){
+        authenticate();
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void postLogin_withoutUserCredentials_receiveApiError(){
+        ResponseEntity<ApiError> response = login(ApiError.class);
+
+        assertThat(response.getBody().getUrl()).isEqualTo(API_1_0_LOGIN);
+    }
+
+    @Test
+    public void postLogin_withoutUserCredentials_receiveApiErrorWithoutValidationErrors(){
+        ResponseEntity<String> response = login(String.class);
+
+        assertThat(response.getBody().contains("validationErrors")).isFalse();
+    }
+
+    @Test
+    public void postLogin_withoutUserCredentials_receiveUnautorizeWithoutWWWAuthenticationHeader(){
+        authenticate();
+        ResponseEntity<String> response = login(String.class);
+
+        assertThat(response.getHeaders().containsKey("WWW-Authenticate")).isFalse();
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveOK(){
+        userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveLoggedUserId(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+        Map<String, Object> body = response.getBody();
+        Integer id = (Integer) body.get("id");
+
+        assertThat(id).isEqualTo(userInDB.getId());
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveLoggedUsersImage(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+        Map<String, Object> body = response.getBody();
+        String image = (String) body.get("image");
+
+        assertThat(image).isEqualTo(userInDB.getImage());
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveLoggedUsersDisplayName(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+        Map<String, Object> body = response.getBody();
+        String displayName = (String) body.get("displayName");
+
+        assertThat(displayName).isEqualTo(userInDB.getDisplayName());
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveLoggedUsersUsername(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+        Map<String, Object> body = response.getBody();
+        String username = (String) body.get("username");
+
+        assertThat(username).isEqualTo(userInDB.getUsername());
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_notReceiveLoggedUsersPassword(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+        Map<String, Object> body = response.getBody();
+
+        assertThat(body.containsKey("password")).isFalse();
+    }
+
+    @Test
+    public void postLogin_whenCalledTwiceWithValidCredentials_secondCallIsServedFromCache(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        login(Object.class);
+        long hitsBefore = authenticationCache.getHitCount();
+
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(authenticationCache.getHitCount()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    public void postLogin_withIncorrectPasswordAfterValidLogin_receiveUnauthorized(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        login(Object.class);
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        testRestTemplate.getRestTemplate().getInterceptors()
+                .add(new BasicAuthenticationInterceptor("test-user", "Wr0ngPassword"));
+
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void postLogin_afterUserIsUpdated_receiveUpdatedDisplayName(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+        authenticate();
+        login(Object.class);
+        UserUpdateViewModel userUpdate = new UserUpdateViewModel();
+        userUpdate.setDisplayName("updated-displayName");
+        testRestTemplate.exchange("/api/1.0/users/" + userInDB.getId(), HttpMethod.PUT,
+                new HttpEntity<>(userUpdate), Object.class);
+
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        assertThat(response.getBody().get("displayName")).isEqualTo("updated-displayName");
+    }
+
+    @Test
+    public void postLogin_withValidUserCredentials_receiveAccessAndRefreshTokens(){
+        userService.save(TestUtil.createValidUser());
+
+        authenticate();
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        assertThat(response.getBody().get("accessToken")).isNotNull();
+        assertThat(response.getBody().get("refreshToken")).isNotNull();
+    }
+
+    @Test
+    public void postLogin_withValidAccessToken_receiveOK(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        String accessToken = (String) login(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .getBody().get("accessToken");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticateWithToken(accessToken);
+
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void postLogin_withTamperedAccessToken_receiveUnauthorized(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        String accessToken = (String) login(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .getBody().get("accessToken");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticateWithToken("x" + accessToken.substring(1));
+
+        ResponseEntity<Object> response = login(Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void postLoginRefresh_withValidRefreshToken_receiveNewAccessToken(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        String refreshToken = (String) login(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .getBody().get("refreshToken");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+
+        ResponseEntity<Map<String, Object>> response = refresh(refreshToken);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("accessToken")).isNotNull();
+    }
+
+    @Test
+    public void postLoginRefresh_withAccessToken_receiveUnauthorized(){
+        userService.save(TestUtil.createValidUser());
+        authenticate();
+        String accessToken = (String) login(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .getBody().get("accessToken");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+
+        ResponseEntity<Map<String, Object>> response = refresh(accessToken);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void postLogin_withAccessTokenIssuedBeforeProfileUpdate_receiveUpdatedUser(){
+        User userInDB = userService.save(TestUtil.createValidUser());
+        authenticate();
+        String accessToken = (String) login(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .getBody().get("accessToken");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticateWithToken(accessToken);
+        login(Object.class);
+        UserUpdateViewModel userUpdate = new UserUpdateViewModel();
+        userUpdate.setDisplayName("updated-displayName");
+        testRestTemplate.exchange("/api/1.0/users/" + userInDB.getId(), HttpMethod.PUT,
+                new HttpEntity<>(userUpdate), Object.class);
+
+        ResponseEntity<Map<String, Object>> response = login(new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        assertThat(response.getBody().get("displayName")).isEqualTo("updated-displayName");
+    }
+
+    private void authenticateWithToken(String token) {
+        testRestTemplate.
+                getRestTemplate().
+                getInterceptors().
+                add((request, body, execution) -> {
+                    request.getHeaders().set("Authorization", "Bearer " + token);
+                    return execution.execute(request, body);
+                });
+    }
+
+    private ResponseEntity<Map<String, Object>> refresh(String refreshToken){
+        return testRestTemplate.exchange(API_1_0_LOGIN + "/refresh", HttpMethod.POST,
+                new HttpEntity<>(Collections.singletonMap("refreshToken", refreshToken)),
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    private void authenticate() {
+        testRestTemplate.
+                getRestTemplate().
+                getInterceptors().
+                add(new BasicAuthenticationInterceptor("test-user","P4ssword"));
+    }
+
+    public <T> ResponseEntity<T> login(Class<T> responseType){
+        return testRestTemplate.postForEntity(API_1_0_LOGIN, null, responseType);
+    }
+
+    public <T> ResponseEntity<T> login(ParameterizedTypeReference<T> responseType){
+        return testRestTemplate.exchange(API_1_0_LOGIN, HttpMethod.POST,null, responseType);
+    }
+}
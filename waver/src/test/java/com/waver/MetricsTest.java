@@ -0,0 +1,174 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.TestUtil;
+import com.waver.model.file.FileAttachment;
+import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.follow.FollowRepository;
+import com.waver.model.user.UserRepository;
+import com.waver.model.wave.WaveRepository;
+import com.waver.services.FileService;
+import com.waver.services.HotFeedCache;
+import com.waver.services.UserService;
+import com.waver.services.WaveService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class MetricsTest {
+
+    private static final String PROMETHEUS = "/actuator/prometheus";
+
+    @LocalManagementPort
+    int managementPort;
+
+    @Autowired
+    TestRestTemplate testRestTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    FileService fileService;
+
+    @Autowired
+    WaveService waveService;
+
+    @Autowired
+    HotFeedCache hotFeedCache;
+
+    @Autowired
+    AppConfiguration appConfiguration;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    WaveRepository waveRepository;
+
+    @Autowired
+    FollowRepository followRepository;
+
+    @Autowired
+    FileAttachmentRepository fileAttachmentRepository;
+
+    @Before
+    public void init() throws IOException {
+        cleanup();
+        hotFeedCache.invalidateAll();
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        followRepository.deleteAll();
+        fileAttachmentRepository.deleteAll();
+        waveRepository.deleteAll();
+        userRepository.deleteAll();
+        FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
+    }
+
+    @Test
+    public void prometheus_whenRequestedOnApplicationPort_isNotServed(){
+        ResponseEntity<String> response = testRestTemplate.getForEntity(PROMETHEUS, String.class);
+
+        assertThat(response.getStatusCode()).isNotEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).doesNotContain("waver_upload_bytes_in_flight_bytes");
+    }
+
+    @Test
+    public void prometheus_whenScraped_receiveOk(){
+        ResponseEntity<String> response = scrape();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("waver_upload_bytes_in_flight_bytes", "waver_attachment_cleanup_backlog");
+    }
+
+    @Test
+    public void prometheus_afterWavesRequested_exportsEndpointServiceAndRepositoryTimers(){
+        waveService.save(userService.save(TestUtil.createValidUser("user1")), TestUtil.createValidWave());
+        testRestTemplate.getForEntity("/api/1.0/waves?page=0&size=5", Object.class);
+
+        String body = scrape().getBody();
+
+        assertThat(body).contains("http_server_requests_seconds_bucket");
+        assertThat(body).containsPattern("waver_service_seconds_count\\{.*service=\"WaveService\"");
+        assertThat(body).containsPattern("waver_repository_seconds_count\\{.*repository=\"WaveRepository\"");
+        assertThat(body).doesNotContainPattern("waver_service_seconds_count\\{.*service=\"WaveJsonCache\"");
+    }
+
+    @Test
+    public void jpaStatements_whenWavesRequested_recordsStatementsOfThatRequest(){
+        testRestTemplate.getForEntity("/api/1.0/waves?page=0&size=5", Object.class);
+
+        double statements = meterRegistry.get("waver.jpa.statements")
+                .tag("uri", "/api/1.0/waves")
+                .summary().totalAmount();
+
+        assertThat(statements).isGreaterThan(0);
+    }
+
+    @Test
+    public void cleanupBacklog_whenOrphanIsOldEnough_isCounted(){
+        FileAttachment old = new FileAttachment();
+        old.setDate(new Date(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+        fileAttachmentRepository.save(old);
+        FileAttachment recent = new FileAttachment();
+        recent.setDate(new Date());
+        fileAttachmentRepository.save(recent);
+
+        double backlog = meterRegistry.get("waver.attachment.cleanup.backlog").gauge().value();
+
+        assertThat(backlog).isEqualTo(1);
+    }
+
+    @Test
+    public void uploadBytesInFlight_afterUploadCompletes_isZero(){
+        userService.save(TestUtil.createValidUser("user1"));
+        testRestTemplate.getRestTemplate().getInterceptors().add(new BasicAuthenticationInterceptor("user1", "P4ssword"));
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ClassPathResource("profile.png"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        ResponseEntity<Object> response = testRestTemplate.postForEntity("/api/1.0/waves/upload", new HttpEntity<>(body, headers), Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fileService.getUploadBytesInFlight()).isEqualTo(0);
+        assertThat(meterRegistry.get("waver.service").tag("method", "saveAttachment").timer().count()).isGreaterThan(0);
+    }
+
+    private ResponseEntity<String> scrape() {
+        return testRestTemplate.getForEntity("http://127.0.0.1:" + managementPort + PROMETHEUS, String.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.waver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ActiveProfiles("test")
+public class QueryPlanTest {
+
+    private static final int USER_COUNT = 100;
+
+    private static final int WAVE_COUNT = 10000;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // The planner only prefers an index over a scan once the tables hold enough rows for H2 to analyze them.
+    @Before
+    public void seed(){
+        List<Object[]> users = new ArrayList<>(USER_COUNT);
+        for (long id = 1; id <= USER_COUNT; id++){
+            users.add(new Object[]{id, "user" + id});
+        }
+        jdbcTemplate.batchUpdate("insert into user (id, username) values (?, ?)", users);
+
+        long now = System.currentTimeMillis();
+        List<Object[]> waves = new ArrayList<>(WAVE_COUNT);
+        List<Object[]> attachments = new ArrayList<>(WAVE_COUNT);
+        for (long id = 1; id <= WAVE_COUNT; id++){
+            Timestamp timestamp = new Timestamp(now - (WAVE_COUNT - id) * 1000);
+            waves.add(new Object[]{id, "wave " + id, timestamp, id % USER_COUNT + 1});
+            attachments.add(new Object[]{id, timestamp, "attachment" + id, id % 10 == 0 ? null : id});
+        }
+        jdbcTemplate.batchUpdate("insert into wave (id, content, timestamp, user_id) values (?, ?, ?, ?)", waves);
+        jdbcTemplate.batchUpdate("insert into file_attachment (id, date, name, wave_id) values (?, ?, ?, ?)", attachments);
+    }
+
+    @Test
+    public void findByUsername_usesUniqueUsernameIndex(){
+        String plan = explain("select * from user where username = 'user1'");
+
+        assertThat(plan).containsIgnoringCase("uk_user_username").doesNotContain("tableScan");
+    }
+
+    @Test
+    public void findByUserOrderedById_usesUserIdIdIndex(){
+        String plan = explain("select * from wave where user_id = 1 and id < 100 order by id desc limit 5");
+
+        assertThat(plan).containsIgnoringCase("idx_wave_user_id_id").doesNotContain("tableScan");
+    }
+
+    @Test
+    public void findByDateBeforeAndWaveIsNull_usesWaveIdDateIndex(){
+        String plan = explain("select * from file_attachment where wave_id is null and date < current_timestamp");
+
+        assertThat(plan).containsIgnoringCase("idx_file_attachment_wave_id_date").doesNotContain("tableScan");
+    }
+
+    private String explain(String query){
+        return testEntityManager.getEntityManager()
+                .createNativeQuery("explain " + query)
+                .getSingleResult()
+                .toString();
+    }
+}
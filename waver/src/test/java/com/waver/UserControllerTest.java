@@ -24,11 +24,13 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +56,9 @@ public class UserControllerTest {
     @Autowired
     AppConfiguration appConfiguration;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     private static final String API_1_0_USERS = "/api/1.0/users";
 
     @Before
@@ -256,6 +261,19 @@ public class UserControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    public void postUser_whenNameWasTakenThroughAnotherNode_receiveMessageOfDuplicateUsername(){
+        // Inserted behind this node's back, so its username filter still reports the name as free.
+        jdbcTemplate.update("insert into user (id, username, display_name, password) values (?, ?, ?, ?)",
+                999999L, "other-node-user", "other-node-display", "P4ssword");
+        User user = TestUtil.createValidUser("other-node-user");
+
+        ResponseEntity<ApiError> response = postSignup(user, ApiError.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getValidationErrors().get("username")).isEqualTo("This name is already in use");
+    }
+
     @Test
     public void postUser_whenAnotherUserAlreadyHasSameName_receiveMessageOfDuplicateUsername(){
         userRepository.save(TestUtil.createValidUser());
@@ -500,6 +518,22 @@ public class UserControllerTest {
         assertThat(storedImage.exists()).isTrue();
     }
 
+    @Test
+    public void putUser_withValidRequestBodyWithSupportedImageFromAuthorizedUser_receiveUserVMWithStoredImageVariants()
+            throws IOException {
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        UserUpdateViewModel updatedUser = createValidUserUpdateVM();
+        updatedUser.setImage(readFileToBase64("profile.png"));
+        HttpEntity<UserUpdateViewModel> requestEntity = new HttpEntity<>(updatedUser);
+        ResponseEntity<UserViewModel> response = putUser(user.getId(), requestEntity, UserViewModel.class);
+        String variantName = response.getBody().getImageVariants().get(64);
+
+        assertThat(variantName).isEqualTo(response.getBody().getImage() + "_64");
+        assertThat(new File(appConfiguration.getFullProfileImagesPath() + "/" + variantName)).exists();
+    }
+
     @Test
     public void putUser_withInvalidRequestBodyWithNullDisplayNameFromAuthorizedUser_receiveBadRequest(){
         User user = userService.save(TestUtil.createValidUser("user1"));
@@ -585,6 +619,53 @@ public class UserControllerTest {
         assertThat(validationErrors.get("image")).isEqualTo("Only PNG and JPG files are allowed");
     }
 
+    @Test
+    public void putUser_withValidRequestBodyWithInvalidBase64ImageFromAuthorizedUser_receiveValidationErrorForProfileImage(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate(user.getUsername());
+
+        UserUpdateViewModel updatedUser = createValidUserUpdateVM();
+        updatedUser.setImage("not*base64*at*all");
+        HttpEntity<UserUpdateViewModel> requestEntity = new HttpEntity<>(updatedUser);
+        ResponseEntity<ApiError> response = putUser(user.getId(), requestEntity, ApiError.class);
+        Map<String, String> validationErrors = response.getBody().getValidationErrors();
+
+        assertThat(validationErrors.get("image")).isEqualTo("Only PNG and JPG files are allowed");
+    }
+
+    @Test
+    public void putUser_withImageWhoseBase64BreaksAfterDetectionPrefixFromAuthorizedUser_receiveValidationErrorForProfileImage()
+            throws IOException {
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate(user.getUsername());
+        byte[] png = FileUtils.readFileToByteArray(new ClassPathResource("profile.png").getFile());
+
+        UserUpdateViewModel updatedUser = createValidUserUpdateVM();
+        updatedUser.setImage(Base64.getEncoder().encodeToString(Arrays.copyOf(png, 16 * 1024)) + "*");
+        HttpEntity<UserUpdateViewModel> requestEntity = new HttpEntity<>(updatedUser);
+        ResponseEntity<ApiError> response = putUser(user.getId(), requestEntity, ApiError.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getValidationErrors()).containsKey("image");
+        assertThat(userRepository.findByUsername("user1").getImage()).isEqualTo(user.getImage());
+    }
+
+    @Test
+    public void putUser_withValidRequestBodyWithTxtImageFromAuthorizedUser_leavesNoStagedFileBehind() throws IOException {
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate(user.getUsername());
+        File stagingFolder = new File(appConfiguration.getFullStagingPath());
+        FileUtils.forceMkdir(stagingFolder);
+        FileUtils.cleanDirectory(stagingFolder);
+
+        UserUpdateViewModel updatedUser = createValidUserUpdateVM();
+        updatedUser.setImage(readFileToBase64("test-txt.txt"));
+        HttpEntity<UserUpdateViewModel> requestEntity = new HttpEntity<>(updatedUser);
+        putUser(user.getId(), requestEntity, Object.class);
+
+        assertThat(stagingFolder.list()).isEmpty();
+    }
+
     @Test
     public void putUser_withValidRequestBodyWithJpgImageForUserWhoHasImage_removesOldImageFromStorage()
             throws IOException {
@@ -0,0 +1,83 @@
+package com.waver;
+
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.user.UserRepository;
+import com.waver.services.UsernameFilter;
+import com.waver.shared.BloomFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UsernameFilterTest {
+
+    UserRepository userRepository;
+
+    UsernameFilter usernameFilter;
+
+    @Before
+    public void init(){
+        userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findIdsAndUsernamesAfter(Mockito.anyLong(), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        usernameFilter = new UsernameFilter(userRepository, new AppConfiguration());
+        usernameFilter.rebuild();
+    }
+
+    @Test
+    public void isTaken_whenUsernameWasNeverSaved_doesNotQueryDatabase(){
+        assertThat(usernameFilter.isTaken("user1")).isFalse();
+
+        Mockito.verify(userRepository, Mockito.never()).existsByUsername(Mockito.anyString());
+    }
+
+    @Test
+    public void isTaken_whenUsernameWasSaved_confirmsWithDatabase(){
+        Mockito.when(userRepository.existsByUsername("user1")).thenReturn(true);
+        usernameFilter.put("user1");
+
+        assertThat(usernameFilter.isTaken("user1")).isTrue();
+        Mockito.verify(userRepository).existsByUsername("user1");
+    }
+
+    @Test
+    public void rebuild_whenUsersExistInDatabase_loadsAllBatches(){
+        List<Object[]> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++){
+            firstBatch.add(new Object[]{id, "user" + id});
+        }
+        Mockito.when(userRepository.findIdsAndUsernamesAfter(Mockito.eq(0L), Mockito.any(Pageable.class))).thenReturn(firstBatch);
+        Mockito.when(userRepository.findIdsAndUsernamesAfter(Mockito.eq(5000L), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new Object[]{5001L, "last-user"}));
+        Mockito.when(userRepository.existsByUsername(Mockito.anyString())).thenReturn(true);
+
+        usernameFilter.rebuild();
+
+        assertThat(usernameFilter.isTaken("user1")).isTrue();
+        assertThat(usernameFilter.isTaken("last-user")).isTrue();
+    }
+
+    @Test
+    public void bloomFilter_whenFilledToExpectedSize_staysNearFalsePositiveProbability(){
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++){
+            filter.put("taken-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++){
+            assertThat(filter.mightContain("taken-" + i)).isTrue();
+            if (filter.mightContain("free-" + i)){
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(200);
+    }
+}
@@ -5,16 +5,27 @@ import com.waver.error.ApiError;
 import com.waver.model.TestUtil;
 import com.waver.model.file.FileAttachment;
 import com.waver.model.file.FileAttachmentRepository;
+import com.waver.model.file.FileAttachmentStatus;
 import com.waver.model.user.User;
 import com.waver.model.user.UserRepository;
+import com.waver.model.user.viewmodel.UserUpdateViewModel;
 import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveImportResult;
 import com.waver.model.wave.WaveRepository;
 import com.waver.model.wave.WaveViewModel;
+import com.waver.services.AttachmentProcessingService;
 import com.waver.services.FileService;
+import com.waver.services.HomeTimelineService;
+import com.waver.services.HotFeedCache;
+import com.waver.services.TokenService;
 import com.waver.services.UserService;
+import com.waver.services.WaveSearchIndex;
 import com.waver.services.WaveService;
+import com.waver.shared.CursorSlice;
 import com.waver.shared.GenericResponse;
 import org.apache.commons.io.FileUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,8 +35,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
 import org.springframework.mock.web.MockMultipartFile;
@@ -36,8 +50,14 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceUnit;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -45,6 +65,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest( webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -71,12 +92,27 @@ public class WaveControllerTest {
     @Autowired
     FileAttachmentRepository fileAttachmentRepository;
 
+    @Autowired
+    AttachmentProcessingService attachmentProcessingService;
+
     @Autowired
     FileService fileService;
 
     @Autowired
     AppConfiguration appConfiguration;
 
+    @Autowired
+    TokenService tokenService;
+
+    @Autowired
+    HotFeedCache hotFeedCache;
+
+    @Autowired
+    HomeTimelineService homeTimelineService;
+
+    @Autowired
+    WaveSearchIndex waveSearchIndex;
+
     @PersistenceUnit
     private EntityManagerFactory entityManagerFactory;
 
@@ -85,6 +121,8 @@ public class WaveControllerTest {
         fileAttachmentRepository.deleteAll();
         waveRepository.deleteAll();
         userRepository.deleteAll();
+        hotFeedCache.invalidateAll();
+        waveSearchIndex.rebuild();
         testRestTemplate.getRestTemplate().getInterceptors().clear();
         FileUtils.cleanDirectory(new File(appConfiguration.getFullAttachmentsPath()));
     }
@@ -100,6 +138,21 @@ public class WaveControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    public void postWave_whenWaveIsValidAndUserHasAccessToken_waveSavedWithTokenUser(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        String accessToken = tokenService.createAccessToken(user);
+        testRestTemplate.getRestTemplate().getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().set("Authorization", "Bearer " + accessToken);
+            return execution.execute(request, body);
+        });
+
+        ResponseEntity<WaveViewModel> response = postWave(TestUtil.createValidWave(), WaveViewModel.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(waveRepository.findAll().get(0).getUser().getId()).isEqualTo(user.getId());
+    }
+
     @Test
     public void postWave_whenWaveIsValidAndUserIsUnauthorized_receiveUnauthorized(){
 
@@ -233,7 +286,7 @@ public class WaveControllerTest {
         authenticate("user1");
 
         MultipartFile file = createFile();
-        FileAttachment savedFile = fileService.saveAttachment(file);
+        FileAttachment savedFile = fileService.saveAttachment(file, null);
 
         Wave wave = TestUtil.createValidWave();
         wave.setAttachment(savedFile);
@@ -244,6 +297,65 @@ public class WaveControllerTest {
         assertThat(attachmentInDb.getWave().getId()).isEqualTo(response.getBody().getId());
     }
 
+    @Test
+    public void postWave_whenAttachmentIsStillProcessing_receiveWaveVmWithDetectedFileType() throws IOException {
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        FileAttachment pendingFile = attachmentProcessingService.saveAttachmentAsync(createFile(), null);
+
+        Wave wave = TestUtil.createValidWave();
+        wave.setAttachment(pendingFile);
+        ResponseEntity<WaveViewModel> response = postWave(wave, WaveViewModel.class);
+
+        assertThat(response.getBody().getAttachment().getFileType()).isEqualTo("image/png");
+        assertThat(response.getBody().getAttachment().getStatus()).isEqualTo(FileAttachmentStatus.READY);
+    }
+
+    @Test
+    public void postWave_whenAttachmentProcessingFailed_receiveBadRequest(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        FileAttachment failedFile = new FileAttachment();
+        failedFile.setDate(new Date());
+        failedFile.setName("failed-upload");
+        failedFile.setStatus(FileAttachmentStatus.FAILED);
+        failedFile = fileAttachmentRepository.save(failedFile);
+
+        Wave wave = TestUtil.createValidWave();
+        wave.setAttachment(failedFile);
+        ResponseEntity<ApiError> response = postWave(wave, ApiError.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getValidationErrors()).containsKey("attachment");
+        assertThat(waveRepository.count()).isEqualTo(0);
+        assertThat(fileAttachmentRepository.findById(failedFile.getId()).get().getWave()).isNull();
+    }
+
+    @Test
+    public void postWave_whenAttachmentIsStillPendingAfterTimeout_receiveBadRequest(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        FileAttachment pendingFile = new FileAttachment();
+        pendingFile.setDate(new Date());
+        pendingFile.setName("pending-upload");
+        pendingFile.setStatus(FileAttachmentStatus.PENDING);
+        pendingFile = fileAttachmentRepository.save(pendingFile);
+
+        Wave wave = TestUtil.createValidWave();
+        wave.setAttachment(pendingFile);
+        ResponseEntity<ApiError> response = postWave(wave, ApiError.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(waveRepository.count()).isEqualTo(0);
+    }
+
+    private void awaitFanOut() throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && homeTimelineService.getPendingFanOutCount() > 0; attempt++){
+            Thread.sleep(50);
+        }
+    }
+
     private MultipartFile createFile() throws IOException {
         ClassPathResource imageResource = new ClassPathResource("profile.png");
         byte[] fileAsByte = FileUtils.readFileToByteArray(imageResource.getFile());
@@ -256,7 +368,7 @@ public class WaveControllerTest {
         authenticate("user1");
 
         MultipartFile file = createFile();
-        FileAttachment savedFile = fileService.saveAttachment(file);
+        FileAttachment savedFile = fileService.saveAttachment(file, null);
 
         Wave wave = TestUtil.createValidWave();
         wave.setAttachment(savedFile);
@@ -273,7 +385,7 @@ public class WaveControllerTest {
         authenticate("user1");
 
         MultipartFile file = createFile();
-        FileAttachment savedFile = fileService.saveAttachment(file);
+        FileAttachment savedFile = fileService.saveAttachment(file, null);
 
         Wave wave = TestUtil.createValidWave();
         wave.setAttachment(savedFile);
@@ -333,6 +445,231 @@ public class WaveControllerTest {
         assertThat(response.getBody().getUser().getUsername()).isEqualTo("user1");
     }
 
+    @Test
+    public void getWaves_whenWavesHaveUsersAndAttachments_pageIsLoadedWithTwoStatements() throws IOException, InterruptedException {
+        for (int i = 1; i <= 5; i++){
+            userService.save(TestUtil.createValidUser("user" + i));
+            testRestTemplate.getRestTemplate().getInterceptors().clear();
+            authenticate("user" + i);
+            for (int j = 0; j < 2; j++){
+                Wave wave = TestUtil.createValidWave();
+                wave.setAttachment(fileService.saveAttachment(createFile(), null));
+                postWave(wave, Object.class);
+            }
+        }
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        awaitFanOut();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<TestPage<WaveViewModel>> response = getWaves(new ParameterizedTypeReference<TestPage<WaveViewModel>>() {});
+
+        assertThat(response.getBody().getContent()).allMatch(wave -> wave.getAttachment() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getOldWaves_whenWavesHaveUsersAndAttachments_sliceIsLoadedWithoutPerWaveStatements() throws IOException, InterruptedException {
+        long lastWaveId = 0;
+        for (int i = 1; i <= 5; i++){
+            userService.save(TestUtil.createValidUser("user" + i));
+            testRestTemplate.getRestTemplate().getInterceptors().clear();
+            authenticate("user" + i);
+            Wave wave = TestUtil.createValidWave();
+            wave.setAttachment(fileService.saveAttachment(createFile(), null));
+            lastWaveId = postWave(wave, WaveViewModel.class).getBody().getId();
+        }
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        awaitFanOut();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        getOldWaves(lastWaveId, new ParameterizedTypeReference<TestPage<WaveViewModel>>() {});
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void importWaves_whenUserIsUnauthorized_receiveUnauthorized(){
+        ResponseEntity<Object> response = importWaves("[{\"content\":\"Imported wave content\"}]", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    public void importWaves_whenItemsAreValid_wavesSavedToDatabaseForAuthorizedUser(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<WaveImportResult> response = importWaves(
+                "[{\"content\":\"Imported wave content 1\"},{\"content\":\"Imported wave content 2\",\"date\":1000}]",
+                WaveImportResult.class);
+
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getErrors()).isEmpty();
+        List<Wave> waves = waveRepository.findAll();
+        assertThat(waves).hasSize(2).allMatch(wave -> wave.getUser().getId() == user.getId());
+        assertThat(waves).anyMatch(wave -> wave.getTimestamp().getTime() == 1000);
+    }
+
+    @Test
+    public void importWaves_whenSomeItemsAreInvalid_receiveErrorsByIndexAndValidItemsAreSaved(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<WaveImportResult> response = importWaves(
+                "[{\"content\":\"Imported wave content\"},{\"content\":\"short\"},{},{\"content\":\"Imported wave content\"}]",
+                WaveImportResult.class);
+
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getFailed()).isEqualTo(2);
+        assertThat(response.getBody().getErrors()).extracting(WaveImportResult.ItemError::getIndex).containsExactly(1, 2);
+        assertThat(response.getBody().getErrors().get(0).getValidationErrors()).containsKey("content");
+        assertThat(waveRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void importWaves_whenManyItemsAreInvalid_receiveOnlyFirstErrorsAndTheirCount(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        String body = IntStream.range(0, 250)
+                .mapToObj(i -> "{\"content\":\"short\"}")
+                .collect(Collectors.joining(",", "[{\"content\":\"Imported wave content\"},", "]"));
+
+        ResponseEntity<WaveImportResult> response = importWaves(body, WaveImportResult.class);
+
+        assertThat(response.getBody().getImported()).isEqualTo(1);
+        assertThat(response.getBody().getFailed()).isEqualTo(250);
+        assertThat(response.getBody().getErrors()).hasSize(appConfiguration.getWaveImportMaxReportedErrors());
+        assertThat(response.getBody().getErrors().get(0).getIndex()).isEqualTo(1);
+    }
+
+    @Test
+    public void importWaves_whenBodyIsMalformed_receiveBadRequestAndNothingIsSaved(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        ResponseEntity<ApiError> response = importWaves(
+                "[{\"content\":\"Imported wave content\"},{\"content\":", ApiError.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(waveRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void importWaves_whenManyItems_wavesAreInsertedInJdbcBatches(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        String body = IntStream.range(0, 1200)
+                .mapToObj(i -> "{\"content\":\"Imported wave content " + i + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<WaveImportResult> response = importWaves(body, WaveImportResult.class);
+
+        assertThat(response.getBody().getImported()).isEqualTo(1200);
+        assertThat(waveRepository.count()).isEqualTo(1200);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(100);
+    }
+
+    @Test
+    public void importWaves_whenWavesImported_newWaveCountIncludesThem(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        Wave lastSeen = waveService.save(user, TestUtil.createValidWave());
+        getNewWaveCount(lastSeen.getId(), new ParameterizedTypeReference<Map<String, Long>>() {});
+
+        importWaves("[{\"content\":\"Imported wave content 1\"},{\"content\":\"Imported wave content 2\"}]", Object.class);
+        ResponseEntity<Map<String, Long>> response = getNewWaveCountOfUser(lastSeen.getId(), "user1",
+                new ParameterizedTypeReference<Map<String, Long>>() {});
+
+        assertThat(response.getBody().get("count")).isEqualTo(2);
+    }
+
+    @Test
+    public void searchWaves_whenTermMatches_receiveMatchingWavesNewestFirst(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        Wave first = waveService.save(user, createWave("Searching for the perfect coffee"));
+        waveService.save(user, createWave("Nothing interesting in here"));
+        Wave third = waveService.save(user, createWave("Coffee again, with milk"));
+
+        CursorSlice<WaveViewModel> result = searchWaves("?q=coffee");
+
+        assertThat(result.getContent()).extracting(WaveViewModel::getId).containsExactly(third.getId(), first.getId());
+    }
+
+    @Test
+    public void searchWaves_withPhraseAndUsername_receiveOnlyMatchingWavesOfThatUser(){
+        User user1 = userService.save(TestUtil.createValidUser("user1"));
+        User user2 = userService.save(TestUtil.createValidUser("user2"));
+        Wave matching = waveService.save(user1, createWave("Spring boot makes it easy"));
+        waveService.save(user1, createWave("Boot spring is the wrong order"));
+        waveService.save(user2, createWave("Spring boot from someone else"));
+
+        CursorSlice<WaveViewModel> result = searchWaves("?q=\"spring boot\"&username=user1");
+
+        assertThat(result.getContent()).extracting(WaveViewModel::getId).containsExactly(matching.getId());
+    }
+
+    @Test
+    public void searchWaves_whenMoreResultsThanPageSize_receiveCursorToNextPage(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        for (int i = 0; i < 5; i++){
+            waveService.save(user, createWave("Paged search result " + i));
+        }
+
+        CursorSlice<WaveViewModel> firstPage = searchWaves("?q=paged&size=3");
+        CursorSlice<WaveViewModel> secondPage = searchWaves("?q=paged&size=3&before=" + firstPage.getNextCursor());
+
+        assertThat(firstPage.isLast()).isFalse();
+        assertThat(secondPage.getContent().size()).isEqualTo(2);
+        assertThat(secondPage.isLast()).isTrue();
+    }
+
+    @Test
+    public void searchWaves_whenWaveIsDeleted_doesNotReceiveIt(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        Wave wave = waveService.save(user, createWave("Soon to be deleted wave"));
+        searchWaves("?q=deleted");
+        authenticate("user1");
+
+        deleteWave(wave.getId(), Object.class);
+
+        assertThat(searchWaves("?q=deleted").getContent()).isEmpty();
+    }
+
+    @Test
+    public void searchWaves_whenWavesAreImported_receiveImportedWaves(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        searchWaves("?q=imported");
+
+        importWaves("[{\"content\":\"Imported wave about kites\"},{\"content\":\"Imported wave about boats\"}]", Object.class);
+
+        assertThat(searchWaves("?q=kites").getContent()).hasSize(1);
+    }
+
+    @Test
+    public void searchWaves_afterRebuild_receiveWavesStoredOutsideTheService(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        Wave wave = createWave("Written straight to the repository");
+        wave.setUser(user);
+        wave.setTimestamp(new Date());
+        waveRepository.save(wave);
+
+        waveSearchIndex.rebuild();
+
+        assertThat(searchWaves("?q=repository").getContent()).hasSize(1);
+    }
+
+    @Test
+    public void searchWaves_whenUsernameIsUnknown_receiveNotFound(){
+        ResponseEntity<Object> response = testRestTemplate.getForEntity(API_1_0_WAVES + "/search?q=anything&username=unknown", Object.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     public void getWavesOfUser_whenUserExists_receiveOK(){
         userService.save(TestUtil.createValidUser("user1"));
@@ -422,7 +759,7 @@ public class WaveControllerTest {
         ResponseEntity<TestPage<Object>> response = getOldWaves(fourth.getId(),
                 new ParameterizedTypeReference<TestPage<Object>>() {});
 
-        assertThat(response.getBody().getTotalElements()).isEqualTo(3);
+        assertThat(response.getBody().getNumberOfElements()).isEqualTo(3);
     }
 
     @Test
@@ -440,6 +777,36 @@ public class WaveControllerTest {
         assertThat(response.getBody().getContent().get(0).getDate()).isGreaterThan(0);
     }
 
+    @Test
+    public void getOldWaves_whenMoreWavesThanPageSize_receiveNextCursorOfLastWaveInSlice(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        IntStream.rangeClosed(1, 7).forEach(i -> waveService.save(user, TestUtil.createValidWave()));
+        Wave top = waveService.save(user, TestUtil.createValidWave());
+        ResponseEntity<Map<String, Object>> response = getOldWaves(top.getId(),
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+        List<Map<String, Object>> content = (List<Map<String, Object>>) response.getBody().get("content");
+
+        assertThat(response.getBody().get("last")).isEqualTo(false);
+        assertThat(((Number) response.getBody().get("nextCursor")).longValue())
+                .isEqualTo(((Number) content.get(4).get("id")).longValue());
+    }
+
+    @Test
+    public void getOldWaves_whenThereAreWaves_noCountQueryIsIssued() throws InterruptedException {
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        IntStream.rangeClosed(1, 7).forEach(i -> waveService.save(user, TestUtil.createValidWave()));
+        Wave top = waveService.save(user, TestUtil.createValidWave());
+        awaitFanOut();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<Map<String, Object>> response = getOldWaves(top.getId(),
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        assertThat(response.getBody().containsKey("totalElements")).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
     @Test
     public void getOldWavesOfUser_whenUserExistThereAreNoWaves_receiveOk(){
         userService.save(TestUtil.createValidUser("user1"));
@@ -463,7 +830,7 @@ public class WaveControllerTest {
                 user.getUsername(),
                 new ParameterizedTypeReference<TestPage<Object>>() {});
 
-        assertThat(response.getBody().getTotalElements()).isEqualTo(3);
+        assertThat(response.getBody().getNumberOfElements()).isEqualTo(3);
     }
 
     @Test
@@ -506,7 +873,7 @@ public class WaveControllerTest {
                 "user2",
                 new ParameterizedTypeReference<TestPage<WaveViewModel>>() {});
 
-        assertThat(response.getBody().getTotalElements()).isEqualTo(0);
+        assertThat(response.getBody().getNumberOfElements()).isEqualTo(0);
     }
 
     @Test
@@ -638,6 +1005,57 @@ public class WaveControllerTest {
         assertThat(response.getBody().get("count")).isEqualTo(1);
     }
 
+    @Test
+    public void getNewWaveCount_whenNewerWaveIsDeleted_receiveCountWithoutDeletedWave(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        Wave first = waveService.save(user, TestUtil.createValidWave());
+        waveService.save(user, TestUtil.createValidWave());
+        Wave third = waveService.save(user, TestUtil.createValidWave());
+        deleteWave(third.getId(), Object.class);
+        ResponseEntity<Map<String, Long>> response = getNewWaveCount(first.getId(),
+                new ParameterizedTypeReference<Map<String,Long>>() {});
+
+        assertThat(response.getBody().get("count")).isEqualTo(1);
+    }
+
+    @Test
+    public void getNewWaveCountOfUser_whenUserDoesntExist_receiveNotFound(){
+        ResponseEntity<Object> response = getNewWaveCountOfUser(5, "nonexistent-user",
+                new ParameterizedTypeReference<Object>() {});
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void streamNewWaves_whenWaveIsSaved_receiveCountEvent() throws IOException {
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        HttpURLConnection connection = openStream(API_1_0_WAVES + "/stream");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            readNextEventData(reader);
+            waveService.save(user, TestUtil.createValidWave());
+
+            assertThat(readNextEventData(reader)).contains("\"count\":1");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void streamNewWavesOfUser_whenAnotherUserSavesWave_receiveNoCountEvent() throws IOException {
+        User user1 = userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        HttpURLConnection connection = openStream("/api/1.0/users/user2/waves/stream");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            readNextEventData(reader);
+            waveService.save(user1, TestUtil.createValidWave());
+
+            assertThatThrownBy(() -> readNextEventData(reader)).isInstanceOf(SocketTimeoutException.class);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
     @Test
     public void deleteWave_WhenUserIsUnauthorized_receiveUnauthorized(){
         ResponseEntity<Object> response = deleteWave(555, Object.class);
@@ -702,7 +1120,7 @@ public class WaveControllerTest {
         authenticate("user1");
 
         MultipartFile file = createFile();
-        FileAttachment savedFile = fileService.saveAttachment(file);
+        FileAttachment savedFile = fileService.saveAttachment(file, null);
 
         Wave wave = TestUtil.createValidWave();
         wave.setAttachment(savedFile);
@@ -722,7 +1140,7 @@ public class WaveControllerTest {
         authenticate("user1");
 
         MultipartFile file = createFile();
-        FileAttachment savedFile = fileService.saveAttachment(file);
+        FileAttachment savedFile = fileService.saveAttachment(file, null);
 
         Wave wave = TestUtil.createValidWave();
         wave.setAttachment(savedFile);
@@ -736,6 +1154,123 @@ public class WaveControllerTest {
         assertThat(storedImage.exists()).isFalse();
     }
 
+    @Test
+    public void deleteWave_whenAttachmentWasServedBefore_imageIsNoLongerServed() throws IOException {
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+
+        FileAttachment savedFile = fileService.saveAttachment(createFile(), null);
+        Wave wave = TestUtil.createValidWave();
+        wave.setAttachment(savedFile);
+        long waveId = postWave(wave, WaveViewModel.class).getBody().getId();
+        String imagePath = "/images/" + appConfiguration.getAttachmentsFolder() + "/" + savedFile.getName();
+        ResponseEntity<byte[]> served = testRestTemplate.getForEntity(imagePath, byte[].class);
+        assertThat(served.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        deleteWave(waveId, Object.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(served.getHeaders().getETag());
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(imagePath, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void getWaves_whenFirstPageRequestedAgain_servedWithoutStatements() throws InterruptedException {
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        postWave(TestUtil.createValidWave(), Object.class);
+        getFirstPage(API_1_0_WAVES);
+        awaitFanOut();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<TestPage<WaveViewModel>> response = getFirstPage(API_1_0_WAVES);
+
+        assertThat(response.getBody().getContent().size()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getWaves_whenWavePostedAfterFirstPageCached_receiveNewWave(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        postWave(TestUtil.createValidWave(), Object.class);
+        getFirstPage(API_1_0_WAVES);
+
+        WaveViewModel newWave = postWave(TestUtil.createValidWave(), WaveViewModel.class).getBody();
+        ResponseEntity<TestPage<WaveViewModel>> response = getFirstPage(API_1_0_WAVES);
+
+        assertThat(response.getBody().getContent().get(0).getId()).isEqualTo(newWave.getId());
+    }
+
+    @Test
+    public void getWaves_whenWaveDeletedAfterFirstPageCached_receivePageWithoutIt(){
+        userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        WaveViewModel wave = postWave(TestUtil.createValidWave(), WaveViewModel.class).getBody();
+        getFirstPage(API_1_0_WAVES);
+
+        testRestTemplate.exchange(API_1_0_WAVES + "/" + wave.getId(), HttpMethod.DELETE, null, Object.class);
+        ResponseEntity<TestPage<WaveViewModel>> response = getFirstPage(API_1_0_WAVES);
+
+        assertThat(response.getBody().getContent()).isEmpty();
+    }
+
+    @Test
+    public void getWavesOfUser_whenAnotherUserPosts_firstPageStaysCached(){
+        userService.save(TestUtil.createValidUser("user1"));
+        userService.save(TestUtil.createValidUser("user2"));
+        authenticate("user1");
+        postWave(TestUtil.createValidWave(), Object.class);
+        getFirstPage("/api/1.0/users/user1/waves");
+        testRestTemplate.getRestTemplate().getInterceptors().clear();
+        authenticate("user2");
+        postWave(TestUtil.createValidWave(), Object.class);
+        long hits = hotFeedCache.getHitCount();
+
+        getFirstPage("/api/1.0/users/user1/waves");
+
+        assertThat(hotFeedCache.getHitCount() - hits).isEqualTo(1);
+    }
+
+    @Test
+    public void getWavesOfUser_whenUserUpdatesDisplayName_firstPageShowsNewName(){
+        User user = userService.save(TestUtil.createValidUser("user1"));
+        authenticate("user1");
+        postWave(TestUtil.createValidWave(), Object.class);
+        getFirstPage("/api/1.0/users/user1/waves");
+
+        UserUpdateViewModel update = new UserUpdateViewModel();
+        update.setDisplayName("updated-display");
+        testRestTemplate.exchange("/api/1.0/users/" + user.getId(), HttpMethod.PUT, new HttpEntity<>(update), Object.class);
+        ResponseEntity<TestPage<WaveViewModel>> response = getFirstPage("/api/1.0/users/user1/waves");
+
+        assertThat(response.getBody().getContent().get(0).getUser().getDisplayName()).isEqualTo("updated-display");
+    }
+
+    private ResponseEntity<TestPage<WaveViewModel>> getFirstPage(String path) {
+        return testRestTemplate.exchange(path + "?page=0&size=5&sort=id,desc", HttpMethod.GET, null,
+                new ParameterizedTypeReference<TestPage<WaveViewModel>>() {});
+    }
+
+    private HttpURLConnection openStream(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(testRestTemplate.getRootUri() + path).openConnection();
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setReadTimeout(2000);
+        return connection;
+    }
+
+    private String readNextEventData(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null){
+            if (line.startsWith("data:")){
+                return line;
+            }
+        }
+        return null;
+    }
+
     private void authenticate(String username) {
         testRestTemplate.
                 getRestTemplate().
@@ -747,6 +1282,23 @@ public class WaveControllerTest {
         return testRestTemplate.postForEntity(API_1_0_WAVES, wave, responseType);
     }
 
+    private Wave createWave(String content) {
+        Wave wave = new Wave();
+        wave.setContent(content);
+        return wave;
+    }
+
+    private CursorSlice<WaveViewModel> searchWaves(String query) {
+        return testRestTemplate.exchange(API_1_0_WAVES + "/search" + query, HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorSlice<WaveViewModel>>() {}).getBody();
+    }
+
+    private <T> ResponseEntity<T> importWaves(String body, Class<T> responseType){
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return testRestTemplate.postForEntity(API_1_0_WAVES + "/bulk", new HttpEntity<>(body, headers), responseType);
+    }
+
     public <T> ResponseEntity<T> getWaves(ParameterizedTypeReference<T> responseType){
         return testRestTemplate.exchange(API_1_0_WAVES, HttpMethod.GET, null, responseType);
     }
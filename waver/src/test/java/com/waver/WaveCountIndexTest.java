@@ -0,0 +1,66 @@
+package com.waver;
+
+import com.waver.model.user.User;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveRepository;
+import com.waver.services.WaveCountIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WaveCountIndexTest {
+
+    WaveRepository waveRepository;
+
+    WaveCountIndex waveCountIndex;
+
+    @Before
+    public void init(){
+        waveRepository = Mockito.mock(WaveRepository.class);
+        waveCountIndex = new WaveCountIndex(waveRepository);
+    }
+
+    @Test
+    public void countGreaterThan_whenWaveIsDeletedAfterItsBatchWasRead_doesNotCountIt(){
+        Mockito.when(waveRepository.findIdsWithUsernameAfter(Mockito.anyLong(), Mockito.any(Pageable.class))).thenAnswer(invocation -> {
+            List<Object[]> batch = new ArrayList<>();
+            batch.add(new Object[]{1L, "user1"});
+            batch.add(new Object[]{2L, "user1"});
+            waveCountIndex.onWaveDeleted(new WaveDeletedEvent(createWave(2L, "user1")));
+            return batch;
+        });
+
+        assertThat(waveCountIndex.countGreaterThan(0, null)).isEqualTo(1);
+        assertThat(waveCountIndex.countGreaterThan(0, "user1")).isEqualTo(1);
+    }
+
+    @Test
+    public void countGreaterThan_whenWaveIsDeletedAfterLoading_doesNotCountIt(){
+        List<Object[]> batch = new ArrayList<>();
+        batch.add(new Object[]{1L, "user1"});
+        batch.add(new Object[]{2L, "user1"});
+        Mockito.when(waveRepository.findIdsWithUsernameAfter(Mockito.anyLong(), Mockito.any(Pageable.class))).thenReturn(batch);
+        waveCountIndex.countGreaterThan(0, null);
+
+        waveCountIndex.onWaveDeleted(new WaveDeletedEvent(createWave(1L, "user1")));
+
+        assertThat(waveCountIndex.countGreaterThan(0, "user1")).isEqualTo(1);
+    }
+
+    private Wave createWave(long id, String username) {
+        User user = new User();
+        user.setId(1);
+        user.setUsername(username);
+        Wave wave = new Wave();
+        wave.setId(id);
+        wave.setUser(user);
+        return wave;
+    }
+}
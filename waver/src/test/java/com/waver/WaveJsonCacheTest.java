@@ -0,0 +1,126 @@
+package com.waver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.waver.configuration.AppConfiguration;
+import com.waver.model.file.FileAttachmentStatus;
+import com.waver.model.file.FileAttachmentVM;
+import com.waver.model.user.viewmodel.UserViewModel;
+import com.waver.model.wave.WaveViewModel;
+import com.waver.services.WaveJsonCache;
+import com.waver.shared.ImageVariants;
+import com.waver.shared.WaveViewModelSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WaveJsonCacheTest {
+
+    WaveJsonCache waveJsonCache;
+
+    ObjectMapper fragmentMapper;
+
+    ObjectMapper plainMapper = new ObjectMapper();
+
+    @Before
+    public void init(){
+        waveJsonCache = new WaveJsonCache(new AppConfiguration());
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(WaveViewModel.class, new WaveViewModelSerializer(waveJsonCache));
+        fragmentMapper = new ObjectMapper().registerModule(module);
+    }
+
+    @Test
+    public void serialize_whenWaveHasUserAndAttachment_matchesPlainJackson() throws Exception {
+        WaveViewModel wave = createWave(1, "display \"quoted\" é", true);
+
+        assertThat(fragmentMapper.writeValueAsString(wave)).isEqualTo(plainMapper.writeValueAsString(wave));
+    }
+
+    @Test
+    public void serialize_whenWavesAreInList_matchesPlainJackson() throws Exception {
+        WaveViewModel[] waves = {createWave(1, "user-1", true), createWave(2, "user-2", false)};
+
+        assertThat(fragmentMapper.writeValueAsString(Arrays.asList(waves)))
+                .isEqualTo(plainMapper.writeValueAsString(Arrays.asList(waves)));
+    }
+
+    @Test
+    public void serialize_whenWaveHasNoUser_writesNullUser() throws Exception {
+        WaveViewModel wave = createWave(1, "user-1", false);
+        wave.setUser(null);
+
+        assertThat(fragmentMapper.writeValueAsString(wave)).isEqualTo(plainMapper.writeValueAsString(wave));
+    }
+
+    @Test
+    public void serialize_whenSameWaveSerializedTwice_reusesFragments() throws Exception {
+        WaveViewModel wave = createWave(1, "user-1", false);
+        fragmentMapper.writeValueAsString(wave);
+        long hits = waveJsonCache.getHitCount();
+
+        fragmentMapper.writeValueAsString(wave);
+
+        assertThat(waveJsonCache.getHitCount() - hits).isEqualTo(1);
+    }
+
+    @Test
+    public void serialize_whenUserDisplayNameChanges_writesNewDisplayName() throws Exception {
+        fragmentMapper.writeValueAsString(createWave(1, "old-name", false));
+
+        String json = fragmentMapper.writeValueAsString(createWave(1, "new-name", false));
+
+        assertThat(json).contains("\"displayName\":\"new-name\"").doesNotContain("old-name");
+    }
+
+    @Test
+    public void serialize_whenAttachmentIsPending_doesNotCacheWave() throws Exception {
+        WaveViewModel wave = createWave(1, "user-1", true);
+        wave.getAttachment().setStatus(FileAttachmentStatus.PENDING);
+        fragmentMapper.writeValueAsString(wave);
+
+        wave.getAttachment().setStatus(FileAttachmentStatus.READY);
+        String json = fragmentMapper.writeValueAsString(wave);
+
+        assertThat(json).contains("\"status\":\"READY\"");
+    }
+
+    @Test
+    public void evictWave_whenWaveDeleted_fragmentsAreRenderedAgain() throws Exception {
+        WaveViewModel wave = createWave(1, "user-1", false);
+        fragmentMapper.writeValueAsString(wave);
+        long misses = waveJsonCache.getMissCount();
+
+        waveJsonCache.evictWave(1);
+        fragmentMapper.writeValueAsString(wave);
+
+        assertThat(waveJsonCache.getMissCount() - misses).isEqualTo(1);
+    }
+
+    private WaveViewModel createWave(long id, String displayName, boolean withAttachment) {
+        UserViewModel user = new UserViewModel();
+        user.setId(7);
+        user.setUsername("user1");
+        user.setDisplayName(displayName);
+        user.setImage("profile.png");
+        user.setImageVariants(ImageVariants.toMap("profile.png", "64,256"));
+        WaveViewModel wave = new WaveViewModel();
+        wave.setId(id);
+        wave.setContent("Test wave content with <html> & \"quotes\"");
+        wave.setDate(1577836800000L);
+        wave.setUser(user);
+        if (withAttachment){
+            FileAttachmentVM attachment = new FileAttachmentVM();
+            attachment.setId(3);
+            attachment.setName("attachment.png");
+            attachment.setFileType("image/png");
+            attachment.setStatus(FileAttachmentStatus.READY);
+            attachment.setVariants(ImageVariants.toMap("attachment.png", "64"));
+            wave.setAttachment(attachment);
+        }
+        return wave;
+    }
+}
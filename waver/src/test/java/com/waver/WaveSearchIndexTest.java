@@ -0,0 +1,82 @@
+package com.waver;
+
+import com.waver.model.user.User;
+import com.waver.model.wave.Wave;
+import com.waver.model.wave.WaveDeletedEvent;
+import com.waver.model.wave.WaveRepository;
+import com.waver.services.WaveSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WaveSearchIndexTest {
+
+    WaveRepository waveRepository;
+
+    WaveSearchIndex waveSearchIndex;
+
+    @Before
+    public void init(){
+        waveRepository = Mockito.mock(WaveRepository.class);
+        waveSearchIndex = new WaveSearchIndex(waveRepository);
+    }
+
+    @Test
+    public void search_whenManySearchesStartAtOnce_loadsIndexOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(waveRepository.findContentsAfter(Mockito.anyLong(), Mockito.any(Pageable.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(new Object[]{1L, "user1", "first wave"});
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++){
+            results.add(executor.submit(() -> waveSearchIndex.search("wave", null, Long.MAX_VALUE, 10)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<List<Long>> result : results){
+            assertThat(result.get()).containsExactly(1L);
+        }
+        executor.shutdown();
+        Mockito.verify(waveRepository, Mockito.times(1)).findContentsAfter(Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void rebuild_whenWaveIsDeletedAfterItsBatchWasRead_doesNotIndexIt(){
+        Mockito.when(waveRepository.findContentsAfter(Mockito.anyLong(), Mockito.any(Pageable.class))).thenAnswer(invocation -> {
+            List<Object[]> batch = new ArrayList<>();
+            batch.add(new Object[]{1L, "user1", "kept wave"});
+            batch.add(new Object[]{2L, "user1", "deleted wave"});
+            waveSearchIndex.onWaveDeleted(new WaveDeletedEvent(createWave(2L, "user1")));
+            return batch;
+        });
+
+        waveSearchIndex.rebuild();
+
+        assertThat(waveSearchIndex.search("wave", null, Long.MAX_VALUE, 10)).containsExactly(1L);
+    }
+
+    private Wave createWave(long id, String username) {
+        User user = new User();
+        user.setId(1);
+        user.setUsername(username);
+        Wave wave = new Wave();
+        wave.setId(id);
+        wave.setUser(user);
+        return wave;
+    }
+}